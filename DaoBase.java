@@ -14,9 +14,18 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * This class contains utility methods for the DAO class.
@@ -25,6 +34,16 @@ import java.util.Objects;
  *
  */
 public abstract class DaoBase {
+  /** MySQL error code returned to the transaction chosen as the victim of a deadlock. */
+  private static final int ER_LOCK_DEADLOCK = 1213;
+
+  /** MySQL error code returned when a statement waits too long for a row lock. */
+  private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+  private static final AtomicLong deadlockRetries = new AtomicLong();
+  private static final AtomicLong lockWaitTimeoutRetries = new AtomicLong();
+  private static final AtomicLong retriesExhausted = new AtomicLong();
+
   /**
    * This starts a MySQL transaction. Normally MySQL starts a transaction before every request and
    * commits it after each request. By turning auto-commit off, the transaction is only committed
@@ -57,9 +76,177 @@ public abstract class DaoBase {
     conn.rollback();
   }
 
+  /**
+   * Obtains the connection used by {@link #inTransaction(TransactionOptions, TransactionWork)}.
+   * Subclasses decide where connections come from.
+   * 
+   * @return An open connection.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   */
+  protected abstract Connection obtainConnection() throws SQLException;
+
+  /**
+   * Gives back a connection obtained from {@link #obtainConnection()}. By default the connection is
+   * closed.
+   * 
+   * @param conn The connection to release.
+   * @throws SQLException Thrown if an error occurs releasing the connection.
+   */
+  protected void releaseConnection(Connection conn) throws SQLException {
+    conn.close();
+  }
+
+  /**
+   * Runs the given work in a single transaction and returns its result. The connection is set to
+   * the isolation level and read-only flag in the options for the duration of the transaction, and
+   * its auto-commit, isolation and read-only settings are restored afterwards, whether the
+   * transaction commits or rolls back.
+   * 
+   * If the transaction fails because MySQL picked it as a deadlock victim or because a lock wait
+   * timed out, the whole transaction is rolled back and run again, up to the maximum number of
+   * attempts in the options. Attempts are spaced by an exponential backoff with full jitter so that
+   * the competing transactions do not collide again in lock step. The work may therefore be called
+   * more than once and must not have side effects outside the transaction.
+   * 
+   * @param <T> The type of the result.
+   * @param options The isolation level, read-only flag and retry limits.
+   * @param work The statements to run. They must all use the connection passed in.
+   * @return The result of the work.
+   * @throws SQLException Thrown if the work fails with a non-retryable error or the retries are
+   *         exhausted. The last error is thrown.
+   */
+  protected <T> T inTransaction(TransactionOptions options, TransactionWork<T> work)
+      throws SQLException {
+    for(int attempt = 1;; attempt++) {
+      try {
+        Connection conn = obtainConnection();
+
+        try {
+          return runTransaction(conn, options, work);
+        }
+        finally {
+          releaseConnection(conn);
+        }
+      }
+      catch(SQLException e) {
+        if(!isRetryable(e)) {
+          throw e;
+        }
+
+        if(attempt >= options.getMaxAttempts()) {
+          retriesExhausted.incrementAndGet();
+          throw e;
+        }
+
+        if(e.getErrorCode() == ER_LOCK_DEADLOCK) {
+          deadlockRetries.incrementAndGet();
+        }
+        else {
+          lockWaitTimeoutRetries.incrementAndGet();
+        }
+
+        backOff(options, attempt, e);
+      }
+    }
+  }
+
+  /**
+   * Runs one attempt of a transaction on the given connection.
+   */
+  private <T> T runTransaction(Connection conn, TransactionOptions options,
+      TransactionWork<T> work) throws SQLException {
+    boolean autoCommit = conn.getAutoCommit();
+    int isolation = conn.getTransactionIsolation();
+    boolean readOnly = conn.isReadOnly();
+
+    try {
+      if(options.getIsolation() != TransactionOptions.DEFAULT_ISOLATION) {
+        conn.setTransactionIsolation(options.getIsolation());
+      }
+
+      conn.setReadOnly(options.isReadOnly());
+      startTransaction(conn);
+
+      try {
+        T result = work.execute(conn);
+        commitTransaction(conn);
+        return result;
+      }
+      catch(SQLException | RuntimeException e) {
+        try {
+          rollbackTransaction(conn);
+        }
+        catch(SQLException rollbackError) {
+          e.addSuppressed(rollbackError);
+        }
+
+        throw e;
+      }
+    }
+    finally {
+      conn.setAutoCommit(autoCommit);
+      conn.setTransactionIsolation(isolation);
+      conn.setReadOnly(readOnly);
+    }
+  }
+
+  /**
+   * Returns true if the exception (or a chained SQL exception) is a MySQL deadlock or lock wait
+   * timeout.
+   */
+  private boolean isRetryable(SQLException e) {
+    for(SQLException cur = e; Objects.nonNull(cur); cur = cur.getNextException()) {
+      if(cur.getErrorCode() == ER_LOCK_DEADLOCK || cur.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Sleeps for a random time between zero and the exponential backoff for the given attempt.
+   */
+  private void backOff(TransactionOptions options, int attempt, SQLException cause)
+      throws SQLException {
+    long ceiling = Math.min(options.getMaxBackoffMillis(),
+        options.getBaseBackoffMillis() << Math.min(attempt - 1, 20));
+
+    try {
+      TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw cause;
+    }
+  }
+
+  /**
+   * @return The number of transactions that were retried after a deadlock.
+   */
+  public static long getDeadlockRetryCount() {
+    return deadlockRetries.get();
+  }
+
+  /**
+   * @return The number of transactions that were retried after a lock wait timeout.
+   */
+  public static long getLockWaitTimeoutRetryCount() {
+    return lockWaitTimeoutRetries.get();
+  }
+
+  /**
+   * @return The number of transactions that still failed with a deadlock or lock wait timeout
+   *         after using all of their attempts.
+   */
+  public static long getRetriesExhaustedCount() {
+    return retriesExhausted.get();
+  }
+
   /**
    * This sets a parameter on a prepared statement. If the parameter is null, it is handled
-   * correctly.
+   * correctly. Statements that run often should compile an {@link EntityMapping} or look up a
+   * {@link ParameterBinder} once with {@link #binderFor(Class)} instead.
    * 
    * @param stmt The prepared statement on which to set the parameter.
    * @param parameterIndex This is the one-based index of the parameter. In the SQL that is bound to
@@ -71,69 +258,76 @@ public abstract class DaoBase {
    *        the type in case the parameter is null.
    * @throws SQLException Thrown if an error occurs.
    */
+  @SuppressWarnings("unchecked")
   protected void setParameter(PreparedStatement stmt, int parameterIndex, Object value,
       Class<?> classType) throws SQLException {
-    int sqlType = convertJavaClassToSqlType(classType);
-
-    if(Objects.isNull(value)) {
-      stmt.setNull(parameterIndex, sqlType);
-    }
-    else {
-      switch(sqlType) {
-        case Types.DECIMAL:
-          stmt.setBigDecimal(parameterIndex, (BigDecimal)value);
-          break;
-
-        case Types.DOUBLE:
-          stmt.setDouble(parameterIndex, (Double)value);
-          break;
-
-        case Types.INTEGER:
-          stmt.setInt(parameterIndex, (Integer)value);
-          break;
-
-        case Types.OTHER:
-          stmt.setObject(parameterIndex, value);
-          break;
+    ((ParameterBinder<Object>)binderFor(classType)).bind(stmt, parameterIndex, value);
+  }
 
-        case Types.VARCHAR:
-          stmt.setString(parameterIndex, (String)value);
-          break;
+  /**
+   * Sets one parameter of a fixed Java type on a prepared statement. A binder calls the typed
+   * setter on the driver directly, and binds null with the matching java.sql.Types value.
+   *
+   * @param <V> The Java type of the parameter
+   */
+  @FunctionalInterface
+  protected interface ParameterBinder<V> {
+    /**
+     * @param stmt The prepared statement on which to set the parameter.
+     * @param parameterIndex The one-based index of the parameter.
+     * @param value The parameter value. This may be null.
+     * @throws SQLException Thrown if an error occurs.
+     */
+    void bind(PreparedStatement stmt, int parameterIndex, V value) throws SQLException;
+  }
 
-        default:
-          throw new DaoException("Unknown parameter type: " + classType);
+  /** The binder for each supported Java class, built once when the class is loaded. */
+  private static final Map<Class<?>, ParameterBinder<?>> BINDERS = Map.ofEntries(
+      binderEntry(Integer.class, Types.INTEGER, PreparedStatement::setInt),
+      binderEntry(Long.class, Types.BIGINT, PreparedStatement::setLong),
+      binderEntry(Boolean.class, Types.BOOLEAN, PreparedStatement::setBoolean),
+      binderEntry(Double.class, Types.DOUBLE, PreparedStatement::setDouble),
+      binderEntry(BigDecimal.class, Types.DECIMAL, PreparedStatement::setBigDecimal),
+      binderEntry(String.class, Types.VARCHAR, PreparedStatement::setString),
+      binderEntry(byte[].class, Types.VARBINARY, PreparedStatement::setBytes),
+      binderEntry(LocalDate.class, Types.DATE,
+          (stmt, index, value) -> stmt.setObject(index, value, Types.DATE)),
+      binderEntry(LocalDateTime.class, Types.TIMESTAMP,
+          (stmt, index, value) -> stmt.setObject(index, value, Types.TIMESTAMP)),
+      binderEntry(LocalTime.class, Types.TIME, PreparedStatement::setObject));
+
+  private static <V> Map.Entry<Class<?>, ParameterBinder<?>> binderEntry(Class<V> classType,
+      int sqlType, ParameterBinder<V> setter) {
+    ParameterBinder<V> binder = (stmt, index, value) -> {
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, sqlType);
       }
-    }
+      else {
+        setter.bind(stmt, index, value);
+      }
+    };
+
+    return Map.entry(classType, binder);
   }
 
   /**
-   * Converts from a Java class to a java.sql.Types value.
+   * Returns the binder for a Java class. Look the binder up once per statement shape and keep it;
+   * calling it does no further type checks.
    * 
-   * @param classType The class type
-   * @return A java.sql.Types value
+   * @param <V> The Java type of the parameter
+   * @param classType The class type. Integer, Long, Boolean, Double, BigDecimal, String, byte[],
+   *        LocalDate, LocalDateTime and LocalTime are supported.
+   * @return The binder
    */
-  private int convertJavaClassToSqlType(Class<?> classType) {
-    if(Integer.class.equals(classType)) {
-      return Types.INTEGER;
-    }
-
-    if(String.class.equals(classType)) {
-      return Types.VARCHAR;
-    }
-
-    if(Double.class.equals(classType)) {
-      return Types.DOUBLE;
-    }
+  @SuppressWarnings("unchecked")
+  protected static <V> ParameterBinder<V> binderFor(Class<V> classType) {
+    ParameterBinder<V> binder = (ParameterBinder<V>)BINDERS.get(classType);
 
-    if(BigDecimal.class.equals(classType)) {
-      return Types.DECIMAL;
+    if(Objects.isNull(binder)) {
+      throw new DaoException("Unsupported class type: " + classType.getName());
     }
 
-    if(LocalTime.class.equals(classType)) {
-      return Types.OTHER;
-    }
-
-    throw new DaoException("Unsupported class type: " + classType.getName());
+    return binder;
   }
 
   /**
@@ -307,6 +501,358 @@ public abstract class DaoBase {
     return nameBuilder.toString();
   }
 
+  /**
+   * The statements run by {@link DaoBase#inTransaction(TransactionOptions, TransactionWork)}.
+   * 
+   * @param <T> The type of the result.
+   */
+  @FunctionalInterface
+  protected interface TransactionWork<T> {
+    /**
+     * @param conn The connection on which the transaction is running.
+     * @return The result of the work.
+     * @throws SQLException Thrown if a statement fails. The transaction is rolled back.
+     */
+    T execute(Connection conn) throws SQLException;
+  }
+
+  /**
+   * The settings for one call to
+   * {@link DaoBase#inTransaction(TransactionOptions, TransactionWork)}. Instances are immutable;
+   * the "with" methods return a copy.
+   * 
+   * Example:
+   * 
+   * <pre>
+   * TransactionOptions options =
+   *     TransactionOptions.readOnly().withIsolation(Connection.TRANSACTION_READ_COMMITTED);
+   * </pre>
+   */
+  public static final class TransactionOptions {
+    /** Leaves the connection's isolation level unchanged. */
+    public static final int DEFAULT_ISOLATION = -1;
+
+    private static final TransactionOptions READ_WRITE =
+        new TransactionOptions(DEFAULT_ISOLATION, false, 5, 10, 1000);
+
+    private final int isolation;
+    private final boolean readOnly;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private TransactionOptions(int isolation, boolean readOnly, int maxAttempts,
+        long baseBackoffMillis, long maxBackoffMillis) {
+      this.isolation = isolation;
+      this.readOnly = readOnly;
+      this.maxAttempts = maxAttempts;
+      this.baseBackoffMillis = baseBackoffMillis;
+      this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @return Read-write options with the connection's isolation level and five attempts.
+     */
+    public static TransactionOptions readWrite() {
+      return READ_WRITE;
+    }
+
+    /**
+     * @return Read-only options with the connection's isolation level and five attempts.
+     */
+    public static TransactionOptions readOnly() {
+      return READ_WRITE.withReadOnly(true);
+    }
+
+    /**
+     * @param isolation One of the {@link Connection} TRANSACTION_ constants.
+     * @return A copy of these options with the given isolation level.
+     */
+    public TransactionOptions withIsolation(int isolation) {
+      return new TransactionOptions(isolation, readOnly, maxAttempts, baseBackoffMillis,
+          maxBackoffMillis);
+    }
+
+    public TransactionOptions withReadOnly(boolean readOnly) {
+      return new TransactionOptions(isolation, readOnly, maxAttempts, baseBackoffMillis,
+          maxBackoffMillis);
+    }
+
+    /**
+     * @param maxAttempts The total number of attempts, including the first. Use 1 to disable
+     *        retries.
+     * @return A copy of these options with the given attempt limit.
+     */
+    public TransactionOptions withMaxAttempts(int maxAttempts) {
+      if(maxAttempts < 1) {
+        throw new IllegalArgumentException("maxAttempts must be at least 1");
+      }
+
+      return new TransactionOptions(isolation, readOnly, maxAttempts, baseBackoffMillis,
+          maxBackoffMillis);
+    }
+
+    /**
+     * @param baseBackoffMillis The backoff ceiling after the first failure. It doubles after each
+     *        further failure.
+     * @param maxBackoffMillis The largest backoff ceiling.
+     * @return A copy of these options with the given backoff.
+     */
+    public TransactionOptions withBackoff(long baseBackoffMillis, long maxBackoffMillis) {
+      return new TransactionOptions(isolation, readOnly, maxAttempts, baseBackoffMillis,
+          maxBackoffMillis);
+    }
+
+    public int getIsolation() {
+      return isolation;
+    }
+
+    public boolean isReadOnly() {
+      return readOnly;
+    }
+
+    public int getMaxAttempts() {
+      return maxAttempts;
+    }
+
+    public long getBaseBackoffMillis() {
+      return baseBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+      return maxBackoffMillis;
+    }
+  }
+
+  /**
+   * Describes how an entity maps to its table: the ID column, the columns written on insert and
+   * update, and optionally a version column and a filter on the rows an update may touch. From this
+   * it generates the INSERT and UPDATE statements, each with a binder compiled once for the
+   * statement's parameters. Instances are immutable; every {@code with...} method returns a copy.
+   * 
+   * @param <E> The entity type
+   */
+  protected static final class EntityMapping<E> {
+    // Microsecond precision, so that writes in the same second are still ordered
+    private static final String CURRENT_TIMESTAMP = "CURRENT_TIMESTAMP(6)";
+
+    private final String tableName;
+    private final Column<E> idColumn;
+    private final List<Column<E>> columns;
+    private final Column<E> versionColumn;
+    private final String rowFilter;
+    private final String createdColumn;
+    private final String updatedColumn;
+
+    private EntityMapping(String tableName, Column<E> idColumn, List<Column<E>> columns,
+        Column<E> versionColumn, String rowFilter, String createdColumn, String updatedColumn) {
+      this.tableName = tableName;
+      this.idColumn = idColumn;
+      this.columns = List.copyOf(columns);
+      this.versionColumn = versionColumn;
+      this.rowFilter = rowFilter;
+      this.createdColumn = createdColumn;
+      this.updatedColumn = updatedColumn;
+    }
+
+    /**
+     * @param <E> The entity type
+     * @param entityType The entity class. It is only used to fix the type parameter.
+     * @param tableName The table the entity is stored in
+     * @return A mapping with no columns
+     */
+    public static <E> EntityMapping<E> forEntity(Class<E> entityType, String tableName) {
+      return new EntityMapping<>(tableName, null, List.of(), null, null, null, null);
+    }
+
+    /**
+     * @param name The ID column. It is generated by the database on insert.
+     * @param classType The Java type of the ID
+     * @param getter Reads the ID from the entity
+     * @return A copy of this mapping with the ID column
+     */
+    public <V> EntityMapping<E> withId(String name, Class<V> classType, Function<E, V> getter) {
+      return new EntityMapping<>(tableName, new Column<>(name, classType, getter), columns,
+          versionColumn, rowFilter, createdColumn, updatedColumn);
+    }
+
+    /**
+     * @param name A column written by INSERT and UPDATE
+     * @param classType The Java type of the column's value
+     * @param getter Reads the value from the entity
+     * @return A copy of this mapping with the column added after the others
+     */
+    public <V> EntityMapping<E> withColumn(String name, Class<V> classType, Function<E, V> getter) {
+      List<Column<E>> added = new ArrayList<>(columns);
+      added.add(new Column<>(name, classType, getter));
+      return new EntityMapping<>(tableName, idColumn, added, versionColumn, rowFilter,
+          createdColumn, updatedColumn);
+    }
+
+    /**
+     * @param name An integer column that every update increments. Conditional updates only match
+     *        rows that still have the entity's version.
+     * @param getter Reads the expected version from the entity
+     * @return A copy of this mapping with the version column
+     */
+    public EntityMapping<E> withVersion(String name, Function<E, Integer> getter) {
+      return new EntityMapping<>(tableName, idColumn, columns,
+          new Column<>(name, Integer.class, getter), rowFilter, createdColumn, updatedColumn);
+    }
+
+    /**
+     * @param filter A condition, in SQL, that rows must meet to be updated
+     * @return A copy of this mapping with the filter
+     */
+    public EntityMapping<E> withRowFilter(String filter) {
+      return new EntityMapping<>(tableName, idColumn, columns, versionColumn, filter,
+          createdColumn, updatedColumn);
+    }
+
+    /**
+     * @param createdName A timestamp column set to the database's current time on insert
+     * @param updatedName A timestamp column set to the database's current time on insert and on
+     *        every update
+     * @return A copy of this mapping with the timestamp columns
+     */
+    public EntityMapping<E> withTimestamps(String createdName, String updatedName) {
+      return new EntityMapping<>(tableName, idColumn, columns, versionColumn, rowFilter,
+          createdName, updatedName);
+    }
+
+    /**
+     * @return INSERT INTO table (columns) VALUES (?, ...), bound from the entity's columns
+     */
+    public EntityStatement<E> insert() {
+      StringJoiner names = new StringJoiner(", ");
+      StringJoiner values = new StringJoiner(", ");
+
+      for(Column<E> column : columns) {
+        names.add(column.name);
+        values.add("?");
+      }
+
+      if(Objects.nonNull(createdColumn)) {
+        names.add(createdColumn).add(updatedColumn);
+        values.add(CURRENT_TIMESTAMP).add(CURRENT_TIMESTAMP);
+      }
+
+      String sql = "INSERT INTO " + tableName + " (" + names + ") VALUES (" + values + ")";
+      return new EntityStatement<>(sql, columns);
+    }
+
+    /**
+     * @return UPDATE table SET columns WHERE id = ?, which also increments the version column and
+     *         applies the row filter if the mapping has them
+     */
+    public EntityStatement<E> update() {
+      return update(false);
+    }
+
+    /**
+     * @return Like {@link #update()}, but only matches the row if its version column still has
+     *         the entity's version
+     */
+    public EntityStatement<E> updateIfVersion() {
+      if(Objects.isNull(versionColumn)) {
+        throw new DaoException("Table " + tableName + " has no version column");
+      }
+
+      return update(true);
+    }
+
+    private EntityStatement<E> update(boolean checkVersion) {
+      if(Objects.isNull(idColumn)) {
+        throw new DaoException("Table " + tableName + " has no ID column");
+      }
+
+      StringJoiner assignments = new StringJoiner(", ");
+      List<Column<E>> parameters = new ArrayList<>(columns);
+
+      for(Column<E> column : columns) {
+        assignments.add(column.name + " = ?");
+      }
+
+      if(Objects.nonNull(versionColumn)) {
+        assignments.add(versionColumn.name + " = " + versionColumn.name + " + 1");
+      }
+
+      if(Objects.nonNull(updatedColumn)) {
+        assignments.add(updatedColumn + " = " + CURRENT_TIMESTAMP);
+      }
+
+      StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ")
+          .append(assignments).append(" WHERE ").append(idColumn.name).append(" = ?");
+      parameters.add(idColumn);
+
+      if(Objects.nonNull(rowFilter)) {
+        sql.append(" AND ").append(rowFilter);
+      }
+
+      if(checkVersion) {
+        sql.append(" AND ").append(versionColumn.name).append(" = ?");
+        parameters.add(versionColumn);
+      }
+
+      return new EntityStatement<>(sql.toString(), parameters);
+    }
+  }
+
+  /**
+   * A generated statement and the binder for its parameters. Create it once, typically in a
+   * static field, and bind each entity with {@link #bind(PreparedStatement, Object)}.
+   * 
+   * @param <E> The entity type
+   */
+  protected static final class EntityStatement<E> {
+    private final String sql;
+    private final List<FieldBinder<E>> binders;
+
+    private EntityStatement(String sql, List<Column<E>> parameters) {
+      this.sql = sql;
+      this.binders = new ArrayList<>(parameters.size());
+
+      for(Column<E> parameter : parameters) {
+        binders.add(parameter.binder);
+      }
+    }
+
+    /**
+     * @return The SQL to prepare
+     */
+    public String getSql() {
+      return sql;
+    }
+
+    /**
+     * Sets every parameter of the statement from the entity.
+     * 
+     * @param stmt A statement prepared from {@link #getSql()}
+     * @param entity The entity
+     * @throws SQLException Thrown if an error occurs.
+     */
+    public void bind(PreparedStatement stmt, E entity) throws SQLException {
+      for(int index = 0; index < binders.size(); index++) {
+        binders.get(index).bind(stmt, index + 1, entity);
+      }
+    }
+  }
+
+  private interface FieldBinder<E> {
+    void bind(PreparedStatement stmt, int parameterIndex, E entity) throws SQLException;
+  }
+
+  private static final class Column<E> {
+    private final String name;
+    private final FieldBinder<E> binder;
+
+    private <V> Column(String name, Class<V> classType, Function<E, V> getter) {
+      ParameterBinder<V> parameterBinder = binderFor(classType);
+      this.name = name;
+      this.binder = (stmt, index, entity) -> parameterBinder.bind(stmt, index, getter.apply(entity));
+    }
+  }
+
   /**
    * This class declares the exception throw by the {@link DaoBase} class. It is a thin wrapper for
    * {@link RuntimeException}.
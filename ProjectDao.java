@@ -2,17 +2,35 @@ package projects.dao;
 
 import provided.util.DaoBase;
 import projects.entity.Category;
+import projects.entity.LazyList;
 import projects.entity.Material;
 import projects.entity.Project;
 import projects.entity.Step;
 import projects.exception.DbException;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class ProjectDao extends DaoBase {
     private static final String CATEGORY_TABLE = "category";
@@ -20,226 +38,2241 @@ public class ProjectDao extends DaoBase {
     private static final String PROJECT_TABLE = "project";
     private static final String PROJECT_CATEGORY_TABLE = "project_category";
     private static final String STEP_TABLE = "step";
+    private static final String CHANGE_LOG_TABLE = "project_change_log";
+    private static final String PROJECT_ARCHIVE_TABLE = "project_archive";
+    private static final String MATERIAL_ARCHIVE_TABLE = "material_archive";
+    private static final String STEP_ARCHIVE_TABLE = "step_archive";
+    private static final String PROJECT_CATEGORY_ARCHIVE_TABLE = "project_category_archive";
+    private static final String TEXT_DICTIONARY_TABLE = "text_dictionary";
+    private static final String JOURNAL_APPLIED_TABLE = "journal_applied";
+    private static final String PROJECT_TOMBSTONE_TABLE = "project_tombstone";
+
+    // Notes and step text of at least this many UTF-8 bytes are stored compressed; 0, the default, turns it off
+    private static final int TEXT_COMPRESSION_THRESHOLD = Integer.getInteger("projects.textCompressionThreshold", 0);
+
+    // Whether the compressed text columns exist, detected once; see hasCompressedText
+    private static volatile Boolean compressedText;
+
+    // Compresses new values; created on first write, see textCodec(Connection)
+    private static volatile TextCodec textCodec;
+
+    // Decompresses stored values, fetching their dictionaries by checksum
+    private static final TextCodec TEXT_READER = new TextCodec(0, null, ProjectDao::fetchDictionary);
+
+    // Row columns without the large TEXT columns (notes, step_text), which are loaded on demand
+    private static final String PROJECT_COLUMNS = "project_id, project_name, estimated_hours, actual_hours, difficulty, row_version";
+    private static final String STEP_COLUMNS = "step_id, project_id, step_order";
+
+    // Deleted projects stay in the table, marked with deleted_at, until the purger removes them
+    private static final String NOT_DELETED = "deleted_at IS NULL";
+
+    // Every write to a project or its children moves updated_at, which delta sync reads changes by
+    private static final String TOUCH = "updated_at=CURRENT_TIMESTAMP(6)";
+
+    private static final String SOFT_DELETE_SQL = "UPDATE " + PROJECT_TABLE
+            + " SET deleted_at=CURRENT_TIMESTAMP, row_version=row_version+1, " + TOUCH + " WHERE project_id=? AND " + NOT_DELETED;
+
+    // Largest number of soft-deleted projects picked up by one purge pass
+    private static final int PURGE_PROJECTS_PER_PASS = 100;
+
+    // The statements behind listing and selecting a project, which are prepared ahead by prewarm()
+    private static final String ALL_PROJECTS_SQL = "SELECT " + PROJECT_COLUMNS + " FROM " + PROJECT_TABLE + " WHERE " + NOT_DELETED + " ORDER BY project_name";
+    private static final String PROJECT_BY_ID_SQL = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ? AND " + NOT_DELETED;
+    private static final String MATERIALS_BY_PROJECT_SQL = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
+    private static final String STEPS_BY_PROJECT_SQL = "SELECT " + STEP_COLUMNS + " FROM " + STEP_TABLE + " WHERE project_id = ?";
+    private static final String CATEGORIES_BY_PROJECT_SQL = "SELECT c.* FROM " + CATEGORY_TABLE + " c " +
+            "JOIN " + PROJECT_CATEGORY_TABLE + " pc ON c.category_id = pc.category_id " +
+            "WHERE pc.project_id = ?";
+    private static final List<String> HOT_STATEMENTS = List.of(ALL_PROJECTS_SQL, PROJECT_BY_ID_SQL,
+            MATERIALS_BY_PROJECT_SQL, STEPS_BY_PROJECT_SQL, CATEGORIES_BY_PROJECT_SQL);
+
+    // Project writes, generated once from the column mapping together with their parameter binders
+    private static final EntityMapping<Project> PROJECT_MAPPING = EntityMapping.forEntity(Project.class, PROJECT_TABLE)
+            .withId("project_id", Integer.class, Project::getProjectId)
+            .withColumn("project_name", String.class, Project::getProjectName)
+            .withColumn("estimated_hours", BigDecimal.class, Project::getEstimatedHours)
+            .withColumn("actual_hours", BigDecimal.class, Project::getActualHours)
+            .withColumn("difficulty", Integer.class, Project::getDifficulty)
+            .withVersion("row_version", Project::getRowVersion)
+            .withTimestamps("created_at", "updated_at")
+            .withRowFilter(NOT_DELETED);
+
+    // Notes go to notes, or compressed to notes_z once that column exists; see projectInsert
+    private static final EntityMapping<Project> PLAIN_PROJECT_MAPPING = PROJECT_MAPPING
+            .withColumn("notes", String.class, Project::getNotes);
+    private static final EntityMapping<Project> COMPRESSED_PROJECT_MAPPING = PROJECT_MAPPING
+            .withColumn("notes", String.class, project -> textCodec.plainPart(project.getNotes()))
+            .withColumn("notes_z", byte[].class, project -> textCodec.compressedPart(project.getNotes()));
+    private static final EntityStatement<Project> INSERT_PROJECT = PLAIN_PROJECT_MAPPING.insert();
+    private static final EntityStatement<Project> UPDATE_PROJECT = PLAIN_PROJECT_MAPPING.update();
+    private static final EntityStatement<Project> UPDATE_PROJECT_IF_VERSION = PLAIN_PROJECT_MAPPING.updateIfVersion();
+    private static final EntityStatement<Project> INSERT_COMPRESSED_PROJECT = COMPRESSED_PROJECT_MAPPING.insert();
+    private static final EntityStatement<Project> UPDATE_COMPRESSED_PROJECT = COMPRESSED_PROJECT_MAPPING.update();
+    private static final EntityStatement<Project> UPDATE_COMPRESSED_PROJECT_IF_VERSION = COMPRESSED_PROJECT_MAPPING.updateIfVersion();
+
+    // Largest number of change log rows removed per compaction transaction
+    private static final int CHANGE_LOG_COMPACT_BATCH = 1000;
+
+    // Largest number of IDs bound into a single IN-list
+    private static final int IN_LIST_CHUNK_SIZE = 500;
+
+    // Largest number of projects locked and changed by one bulk operation transaction
+    private static final int BULK_CHUNK_SIZE = 200;
+
+    // How old a change must be before delta sync returns it; see fetchProjectDelta
+    private static final long SYNC_SETTLE_MILLIS = Long.getLong("projects.syncSettleMillis", 10_000);
+
+    // Columns copied when a project is archived, plus the compressed text columns once they exist
+    private static final String ARCHIVED_PROJECT_COLUMNS = "project_id, project_name, estimated_hours, actual_hours, difficulty, notes, row_version, created_at, updated_at";
+    private static final String ARCHIVED_STEP_COLUMNS = "step_id, project_id, step_text, step_order";
+    private static final String ARCHIVED_MATERIAL_COLUMNS = "material_id, project_id, material_name, num_required, cost";
+    private static final String ARCHIVED_PROJECT_CATEGORY_COLUMNS = "project_id, category_id";
+
+    // The compressed text columns by table, and how each is added without blocking writes: the
+    // archive tables' compressed row format does not allow instant changes
+    private static final String[][] COMPRESSED_TEXT_COLUMNS = {
+        { PROJECT_TABLE, "notes", "notes_z", "ALGORITHM=INSTANT" },
+        { STEP_TABLE, "step_text", "step_text_z", "ALGORITHM=INSTANT" },
+        { PROJECT_ARCHIVE_TABLE, "notes", "notes_z", "ALGORITHM=INPLACE, LOCK=NONE" },
+        { STEP_ARCHIVE_TABLE, "step_text", "step_text_z", "ALGORITHM=INPLACE, LOCK=NONE" } };
+
+    // Runs on the connection of the session bound to this thread, if there is one
+    @Override
+    protected Connection obtainConnection() {
+        ProjectSession session = ProjectSession.current();
+        return session != null ? session.connection() : DbConnection.getConnection();
+    }
+
+    @Override
+    protected void releaseConnection(Connection conn) throws SQLException {
+        ProjectSession session = ProjectSession.current();
+
+        if (session == null || !session.owns(conn)) {
+            conn.close();
+        }
+    }
+
+    /**
+     * Opens pooled connections and runs each hot statement once on them, so the first user action
+     * finds the driver classes loaded, the connections open and the statements parsed and cached.
+     * The statements are run with an ID that matches no row, or limited to one row.
+     */
+    public void prewarm(int connections) {
+        DbConnection.prewarm(connections);
+
+        try {
+            Connection conn = obtainConnection();
+
+            try {
+                for (String sql : HOT_STATEMENTS) {
+                    try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                        stmnt.setMaxRows(1);
+
+                        if (sql.indexOf('?') >= 0) {
+                            stmnt.setInt(1, -1);
+                        }
+
+                        try (ResultSet rs = stmnt.executeQuery()) {
+                            while (rs.next()) {
+                                // Drain the rows so the read path is exercised as well
+                            }
+                        }
+                    }
+                }
+            } finally {
+                releaseConnection(conn);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
 
     public Project insertProject(Project project) {
-        String sql = "INSERT INTO " + PROJECT_TABLE + " (project_name, estimated_hours, actual_hours, difficulty, notes) VALUES (?, ?, ?, ?, ?)";
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                EntityStatement<Project> insert = projectInsert(conn);
+
+                try (PreparedStatement stmnt = conn.prepareStatement(insert.getSql(), PreparedStatement.RETURN_GENERATED_KEYS)) {
+                    insert.bind(stmnt, project);
+
+                    if (stmnt.executeUpdate() == 0) {
+                        return null; // Insertion failed
+                    }
+
+                    // Retrieve the generated project_id
+                    try (ResultSet generatedKeys = stmnt.getGeneratedKeys()) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("Unable to retrieve the generated project ID.");
+                        }
+
+                        project.setProjectId(generatedKeys.getInt(1));
+                        project.setRowVersion(0);
+                    }
+                }
+
+                appendChange(conn, project.getProjectId(), ProjectChange.Type.INSERT);
+
+                return project; // Project added successfully
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+
+    /**
+     * Inserts the projects with one JDBC batch in one transaction and sets their generated IDs.
+     * With rewriteBatchedStatements on, the driver sends the batch as multi-row INSERTs.
+     */
+    public List<Project> insertProjectBatch(List<Project> projects) {
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                List<Integer> ids = new ArrayList<>(projects.size());
+                EntityStatement<Project> insert = projectInsert(conn);
+
+                try (PreparedStatement stmnt = conn.prepareStatement(insert.getSql(), PreparedStatement.RETURN_GENERATED_KEYS)) {
+                    for (Project project : projects) {
+                        insert.bind(stmnt, project);
+                        stmnt.addBatch();
+                    }
+
+                    stmnt.executeBatch();
+
+                    try (ResultSet generatedKeys = stmnt.getGeneratedKeys()) {
+                        while (generatedKeys.next()) {
+                            ids.add(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+
+                if (ids.size() != projects.size()) {
+                    throw new SQLException("Expected " + projects.size() + " generated project IDs but got " + ids.size());
+                }
+
+                for (int i = 0; i < projects.size(); i++) {
+                    projects.get(i).setProjectId(ids.get(i));
+                    projects.get(i).setRowVersion(0);
+                }
+
+                appendChanges(conn, ids, ProjectChange.Type.INSERT);
+                return projects;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Updates the projects with one JDBC batch in one transaction. Row versions are not checked.
+     *
+     * @return For each project, whether it existed and was updated.
+     */
+    public boolean[] modifyProjectBatch(List<Project> projects) {
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                List<Integer> ids = new ArrayList<>(projects.size());
+                EntityStatement<Project> update = projectUpdate(conn, false);
+
+                try (PreparedStatement stmnt = conn.prepareStatement(update.getSql())) {
+                    for (Project project : projects) {
+                        update.bind(stmnt, project);
+                        stmnt.addBatch();
+                        ids.add(project.getProjectId());
+                    }
+
+                    return appendChangesForBatch(conn, ids, stmnt.executeBatch(), ProjectChange.Type.UPDATE);
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Marks the projects deleted with one JDBC batch in one transaction. See {@link #deleteProject(Integer)}.
+     *
+     * @return For each ID, whether the project existed and was deleted.
+     */
+    public boolean[] deleteProjectBatch(List<Integer> projectIds) {
+        String sql = SOFT_DELETE_SQL;
+
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    for (Integer projectId : projectIds) {
+                        stmnt.setInt(1, projectId);
+                        stmnt.addBatch();
+                    }
+
+                    return appendChangesForBatch(conn, projectIds, stmnt.executeBatch(), ProjectChange.Type.DELETE);
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private boolean[] appendChangesForBatch(Connection conn, List<Integer> ids, int[] counts, ProjectChange.Type type)
+            throws SQLException {
+        boolean[] changed = new boolean[counts.length];
+        List<Integer> changedIds = new ArrayList<>();
+
+        for (int i = 0; i < counts.length; i++) {
+            changed[i] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+
+            if (changed[i]) {
+                changedIds.add(ids.get(i));
+            }
+        }
+
+        appendChanges(conn, changedIds, type);
+        return changed;
+    }
+
+    public List<Project> fetchAllProjects() {
+        String sql = ALL_PROJECTS_SQL;
+
+        try {
+            ProjectSession session = ProjectSession.current();
+            List<Project> materialized = new ArrayList<>();
+
+            List<Project> projects = inTransaction(TransactionOptions.readOnly(), conn -> {
+                List<Project> rows = new ArrayList<>();
+
+                try (PreparedStatement stmnt = conn.prepareStatement(sql);
+                     ResultSet rs = stmnt.executeQuery()) {
+                    while (rs.next()) {
+                        Project cached = session == null ? null : session.find(rs.getInt("project_id"));
+
+                        if (cached != null) {
+                            rows.add(cached);
+                            continue;
+                        }
+
+                        Project project = extractProject(rs);
+                        rows.add(project);
+                        materialized.add(project);
+                    }
+                }
+
+                return rows;
+            });
+
+            deferProjectNotes(materialized);
+
+            if (session != null) {
+                // Registered projects must be complete, so their children load on demand in the session
+                for (Project project : materialized) {
+                    Integer projectId = project.getProjectId();
+                    project.setMaterials(new LazyList<>(() -> inSession(session, c -> fetchMaterials(c, projectId))));
+                    project.setSteps(new LazyList<>(() -> inSession(session, c -> fetchSteps(c, projectId))));
+                    project.setCategories(new LazyList<>(() -> inSession(session, c -> fetchCategories(c, projectId))));
+                    session.register(project);
+                }
+            }
+
+            return projects;
+        } catch (SQLException e) {
+            System.err.println("Error executing SQL query: " + e.getMessage());
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Reads a project within the given session. Associations in the fetch plan are read now; the
+     * others are returned as lazy lists that read their rows on the session's connection the first
+     * time they are used, and fail if the session has been closed by then.
+     */
+    public Project fetchProjectById(ProjectSession session, Integer projectId, FetchPlan plan) {
+        String sql = PROJECT_BY_ID_SQL;
+        Project cached = session.find(projectId);
+
+        if (cached != null) {
+            // Lazy associations that the plan asks for are loaded now, as they would be on a fresh read
+            if (plan.includes(FetchPlan.Association.MATERIALS)) {
+                cached.getMaterials().size();
+            }
+
+            if (plan.includes(FetchPlan.Association.STEPS)) {
+                cached.getSteps().size();
+            }
+
+            if (plan.includes(FetchPlan.Association.CATEGORIES)) {
+                cached.getCategories().size();
+            }
+
+            return cached;
+        }
+
+        try {
+            Connection conn = session.connection();
+            boolean compressed = hasCompressedText(conn);
+            Project project = null;
+
+            try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                stmnt.setInt(1, projectId);
+
+                try (ResultSet rs = stmnt.executeQuery()) {
+                    if (rs.next()) {
+                        project = extractProject(rs);
+                        readNotes(rs, project, compressed);
+                        readTimestamps(rs, project);
+                    }
+                }
+            }
+
+            if (project == null) {
+                // Archived projects are read whole; they are rarely read and never written
+                project = readProjectGraphs(conn, List.of(projectId), Tier.ARCHIVE).get(projectId);
+
+                if (project != null) {
+                    session.register(project);
+                }
+
+                return project;
+            }
+
+            session.register(project);
+
+            if (plan.includes(FetchPlan.Association.MATERIALS)) {
+                project.setMaterials(fetchMaterials(conn, projectId));
+            } else {
+                project.setMaterials(new LazyList<>(() -> inSession(session, c -> fetchMaterials(c, projectId))));
+            }
+
+            if (plan.includes(FetchPlan.Association.STEPS)) {
+                project.setSteps(fetchSteps(conn, projectId));
+            } else {
+                project.setSteps(new LazyList<>(() -> inSession(session, c -> fetchSteps(c, projectId))));
+            }
+
+            if (plan.includes(FetchPlan.Association.CATEGORIES)) {
+                project.setCategories(fetchCategories(conn, projectId));
+            } else {
+                project.setCategories(new LazyList<>(() -> inSession(session, c -> fetchCategories(c, projectId))));
+            }
+
+            return project;
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private interface SessionQuery<T> {
+        T query(Connection conn) throws SQLException;
+    }
+
+    private <T> T inSession(ProjectSession session, SessionQuery<T> query) {
+        try {
+            return query.query(session.connection());
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Returns the row version of the project, or null if there is no such project. Archived projects
+     * have a version too, as fetchProjectById still returns them. This is a primary key lookup on each
+     * table that reads no other columns, so it is cheap enough to run before every conditional read.
+     */
+    public Integer fetchProjectVersion(Integer projectId) {
+        String sql = "SELECT row_version FROM " + PROJECT_TABLE + " WHERE project_id = ? AND " + NOT_DELETED
+                + " UNION ALL SELECT row_version FROM " + PROJECT_ARCHIVE_TABLE + " WHERE project_id = ?";
+
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setInt(1, projectId);
+                    stmnt.setInt(2, projectId);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        return rs.next() ? rs.getInt(1) : null;
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Whether the project has been moved to the archive tables. Archived projects are read-only.
+     */
+    public boolean isProjectArchived(Integer projectId) {
+        String sql = "SELECT 1 FROM " + PROJECT_ARCHIVE_TABLE + " WHERE project_id = ?";
+
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setInt(1, projectId);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        return rs.next();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Passes each project row (without notes), in project name order, to the handler while the rows
+     * are streamed from the server. The handler must not keep the result set.
+     */
+    public void streamProjects(RowHandler handler) {
+        try {
+            inTransaction(TransactionOptions.readOnly(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(ALL_PROJECTS_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+                    stmnt.setFetchSize(Integer.MIN_VALUE);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        while (rs.next()) {
+                            handler.handle(rs);
+                        }
+                    }
+                }
+
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    public ProjectSnapshot fetchProjectSnapshot() {
+        String sql = "SELECT project_id, project_name, estimated_hours, actual_hours, difficulty FROM "
+                + PROJECT_TABLE + " WHERE " + NOT_DELETED + " ORDER BY project_id";
+
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    // Integer.MIN_VALUE tells the MySQL driver to stream rows instead of buffering the whole table
+                    stmnt.setFetchSize(Integer.MIN_VALUE);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        ProjectSnapshot.Builder builder = new ProjectSnapshot.Builder();
+
+                        while (rs.next()) {
+                            readSnapshotRow(rs, builder);
+                        }
+
+                        return builder.build();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    public ProjectSnapshot refreshProjectSnapshot(ProjectSnapshot snapshot, Collection<Integer> changedIds) {
+        if (changedIds.isEmpty()) {
+            return snapshot;
+        }
+
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(changedIds));
+        String sql = "SELECT project_id, project_name, estimated_hours, actual_hours, difficulty FROM "
+                + PROJECT_TABLE + " WHERE project_id IN (%s) AND " + NOT_DELETED + " ORDER BY project_id";
+
+        try {
+            // The IDs are sorted, so the chunks arrive in ascending project ID order
+            ProjectSnapshot changed = inTransaction(TransactionOptions.readOnly(), conn -> {
+                ProjectSnapshot.Builder builder = new ProjectSnapshot.Builder(ids.size());
+                queryInChunks(conn, sql, ids, rs -> readSnapshotRow(rs, builder));
+                return builder.build();
+            });
+
+            // Changed IDs that no longer have a row were deleted
+            List<Integer> removed = new ArrayList<>();
+
+            for (Integer id : ids) {
+                if (changed.rowOf(id) < 0) {
+                    removed.add(id);
+                }
+            }
+
+            return snapshot.withChanges(changed, removed);
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private void readSnapshotRow(ResultSet rs, ProjectSnapshot.Builder builder) throws SQLException {
+        builder.add(rs.getInt("project_id"), rs.getString("project_name"),
+                ProjectSnapshot.toScaledHours(rs.getBigDecimal("estimated_hours")),
+                ProjectSnapshot.toScaledHours(rs.getBigDecimal("actual_hours")),
+                rs.getInt("difficulty"));
+    }
+
+    /**
+     * Reads the given projects with all of their children. Each table is read with one IN-list query
+     * per chunk of IDs (so 100 projects cost four queries on one connection), and the child rows are
+     * attached to their projects as they are read. Projects are returned in the order of the given
+     * IDs; IDs with no project are skipped.
+     */
+    public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+
+        ProjectSession session = ProjectSession.current();
+        Map<Integer, Project> projectsById = new HashMap<>();
+        List<Integer> unread = new ArrayList<>();
+
+        for (Integer id : ids) {
+            Project cached = session == null ? null : session.find(id);
+
+            if (cached != null) {
+                projectsById.put(id, cached);
+            } else {
+                unread.add(id);
+            }
+        }
+
+        if (!unread.isEmpty()) {
+            try {
+                // One read-only transaction gives all the queries the same view of the data
+                Map<Integer, Project> read = inTransaction(TransactionOptions.readOnly(), conn -> {
+                    Map<Integer, Project> found = readProjectGraphs(conn, unread, Tier.HOT);
+
+                    if (found.size() < unread.size()) {
+                        List<Integer> missing = new ArrayList<>(unread);
+                        missing.removeAll(found.keySet());
+                        found.putAll(readProjectGraphs(conn, missing, Tier.ARCHIVE));
+                    }
+
+                    return found;
+                });
+
+                if (session != null) {
+                    read.values().forEach(session::register);
+                }
+
+                projectsById.putAll(read);
+            } catch (SQLException e) {
+                throw new DbException(e);
+            }
+        }
+
+        List<Project> projects = new ArrayList<>(projectsById.size());
+
+        for (Integer id : ids) {
+            if (projectsById.containsKey(id)) {
+                projects.add(projectsById.get(id));
+            }
+        }
+
+        return projects;
+    }
+
+    /**
+     * Returns one page of the live projects that match the query, in the query's order. The filter,
+     * order and page position compile into one parameterized statement ordered by (sort column,
+     * project ID); with the composite indexes on (deleted_at, sort column, project_id) MySQL reads
+     * the page off the index in order and stops after it, without a filesort. The query reads one
+     * row past the page to know whether another page follows.
+     *
+     * Graphs are read with their children in the same read-only transaction, and graphs already in
+     * the current session are returned as they are. Projections are not registered in the session.
+     */
+    public ProjectPage fetchProjects(ProjectQuery query) {
+        ProjectSort sort = query.getSort();
+        String column = sort.getColumn();
+        String direction = query.isDescending() ? " DESC" : "";
+        List<Object> parameters = new ArrayList<>(query.getFilter().getParameters());
+        StringBuilder sql = new StringBuilder("SELECT " + PROJECT_COLUMNS + ", created_at, updated_at FROM " + PROJECT_TABLE
+                + " WHERE " + NOT_DELETED + " AND (" + query.getFilter().getPredicate() + ")");
+
+        if (query.getAfter() != null) {
+            sql.append(" AND ").append(keysetPredicate(query, parameters));
+        }
+
+        sql.append(" ORDER BY ");
+
+        if (sort != ProjectSort.ID) {
+            sql.append(column).append(direction).append(", ");
+        }
+
+        sql.append("project_id").append(direction).append(" LIMIT ?");
+
+        try {
+            ProjectSession session = ProjectSession.current();
+
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                List<Project> rows = new ArrayList<>();
+                List<Object> sortValues = new ArrayList<>();
+
+                try (PreparedStatement stmnt = conn.prepareStatement(sql.toString())) {
+                    bindValues(stmnt, 1, parameters);
+                    stmnt.setInt(parameters.size() + 1, query.getLimit() + 1);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        while (rs.next()) {
+                            Project project = extractProject(rs);
+                            readTimestamps(rs, project);
+                            rows.add(project);
+                            // Read from the row, not the entity, which turns a null difficulty into 0
+                            sortValues.add(rs.getObject(column, sort.getValueType()));
+                        }
+                    }
+                }
+
+                String nextCursor = null;
+
+                if (rows.size() > query.getLimit()) {
+                    rows.remove(rows.size() - 1);
+                    nextCursor = query.encode(sortValues.get(rows.size() - 1), rows.get(rows.size() - 1).getProjectId());
+                }
+
+                if (query.getShape() == ProjectQuery.Shape.PROJECTION) {
+                    deferProjectNotes(rows);
+                    return new ProjectPage(rows, nextCursor);
+                }
+
+                List<Project> graphs = new ArrayList<>(rows.size());
+                List<Integer> unread = new ArrayList<>();
+
+                for (Project row : rows) {
+                    if (session == null || session.find(row.getProjectId()) == null) {
+                        unread.add(row.getProjectId());
+                    }
+                }
+
+                Map<Integer, Project> read = readProjectGraphs(conn, unread, Tier.HOT);
+
+                for (Project row : rows) {
+                    Project cached = session == null ? null : session.find(row.getProjectId());
+                    graphs.add(cached != null ? cached : read.get(row.getProjectId()));
+                }
+
+                if (session != null) {
+                    read.values().forEach(session::register);
+                }
+
+                return new ProjectPage(graphs, nextCursor);
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /*
+     * The condition for rows strictly after the query's cursor in (sort column, project ID) order,
+     * adding its parameters. MySQL sorts nulls first, so in ascending order the nulls of a nullable
+     * column come before every value, and in descending order after.
+     */
+    private String keysetPredicate(ProjectQuery query, List<Object> parameters) {
+        ProjectSort sort = query.getSort();
+        String column = sort.getColumn();
+        String after = query.isDescending() ? " < ?" : " > ?";
+        Object value = query.getAfter().getValue();
+        int projectId = query.getAfter().getProjectId();
+
+        if (sort == ProjectSort.ID) {
+            parameters.add(projectId);
+            return "project_id" + after;
+        }
+
+        if (value == null) {
+            parameters.add(projectId);
+            return query.isDescending() ? "(" + column + " IS NULL AND project_id < ?)"
+                    : "(" + column + " IS NOT NULL OR project_id > ?)";
+        }
+
+        parameters.add(value);
+        parameters.add(value);
+        parameters.add(projectId);
+        String nullsAfter = query.isDescending() && sort.isNullable() ? " OR " + column + " IS NULL" : "";
+        return "(" + column + after + " OR (" + column + " = ? AND project_id" + after + ")" + nullsAfter + ")";
+    }
+
+    private Map<Integer, Project> readProjectGraphs(Connection conn, List<Integer> ids, Tier tier) throws SQLException {
+        Map<Integer, Project> projectsById = new HashMap<>();
+        boolean compressed = hasCompressedText(conn);
+
+        queryInChunks(conn, "SELECT * FROM " + tier.projectTable + " WHERE project_id IN (%s)" + tier.projectFilter, ids, rs -> {
+            Project project = extractProject(rs);
+            readNotes(rs, project, compressed);
+            readTimestamps(rs, project);
+            projectsById.put(project.getProjectId(), project);
+        });
+
+        List<Integer> foundIds = new ArrayList<>(projectsById.keySet());
+        List<Step> steps = new ArrayList<>();
+        Map<Integer, Category> categoriesById = new HashMap<>();
+
+        if (foundIds.isEmpty()) {
+            return projectsById;
+        }
+
+        queryInChunks(conn, "SELECT * FROM " + tier.materialTable + " WHERE project_id IN (%s) ORDER BY project_id, material_id",
+                foundIds, rs -> {
+                    Material material = extractMaterial(rs);
+                    projectsById.get(material.getProjectId()).getMaterials().add(material);
+                });
+
+        String stepColumns = tier == Tier.ARCHIVE ? withCompressedColumn(tier.stepColumns, TextColumn.STEP_TEXT, compressed)
+                : tier.stepColumns;
+
+        queryInChunks(conn, "SELECT " + stepColumns + " FROM " + tier.stepTable
+                + " WHERE project_id IN (%s) ORDER BY project_id, step_order", foundIds, rs -> {
+                    Step step = extractStep(rs);
+
+                    if (tier == Tier.ARCHIVE) {
+                        byte[] stepTextZ = compressed ? rs.getBytes("step_text_z") : null;
+
+                        if (stepTextZ == null) {
+                            step.setStepText(rs.getString("step_text"));
+                        } else {
+                            step.deferStepText(() -> TEXT_READER.decompress(stepTextZ));
+                        }
+                    }
+
+                    projectsById.get(step.getProjectId()).getSteps().add(step);
+                    steps.add(step);
+                });
+
+        queryInChunks(conn, "SELECT pc.project_id, c.* FROM " + CATEGORY_TABLE + " c JOIN " + tier.projectCategoryTable
+                + " pc ON c.category_id = pc.category_id WHERE pc.project_id IN (%s)", foundIds, rs -> {
+                    // Projects in the same category share one Category object
+                    Category category = categoriesById.get(rs.getInt("category_id"));
+
+                    if (category == null) {
+                        category = extractCategory(rs);
+                        categoriesById.put(category.getCategoryId(), category);
+                    }
+
+                    projectsById.get(rs.getInt("project_id")).getCategories().add(category);
+                });
+
+        if (tier == Tier.HOT) {
+            // The step text for the whole page is read in one batch on first access
+            deferStepText(steps);
+        }
+
+        return projectsById;
+    }
+
+    /*
+     * The tables a project graph is read from. Archived steps are read with their text because the
+     * deferred loaders only know the hot step table.
+     */
+    private enum Tier {
+        HOT(PROJECT_TABLE, MATERIAL_TABLE, STEP_TABLE, PROJECT_CATEGORY_TABLE, " AND " + NOT_DELETED, STEP_COLUMNS),
+        ARCHIVE(PROJECT_ARCHIVE_TABLE, MATERIAL_ARCHIVE_TABLE, STEP_ARCHIVE_TABLE, PROJECT_CATEGORY_ARCHIVE_TABLE, "",
+                ARCHIVED_STEP_COLUMNS);
+
+        private final String projectTable;
+        private final String materialTable;
+        private final String stepTable;
+        private final String projectCategoryTable;
+        private final String projectFilter;
+        private final String stepColumns;
+
+        Tier(String projectTable, String materialTable, String stepTable, String projectCategoryTable,
+                String projectFilter, String stepColumns) {
+            this.projectTable = projectTable;
+            this.materialTable = materialTable;
+            this.stepTable = stepTable;
+            this.projectCategoryTable = projectCategoryTable;
+            this.projectFilter = projectFilter;
+            this.stepColumns = stepColumns;
+        }
+    }
+
+    public interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Runs a query whose SQL contains one {@code %s} for an IN-list, once per chunk of at most
+     * {@link #IN_LIST_CHUNK_SIZE} IDs, and passes every returned row to the handler.
+     */
+    private void queryInChunks(Connection conn, String sqlTemplate, List<Integer> ids, RowHandler handler)
+            throws SQLException {
+        for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, ids.size()));
+            String sql = String.format(sqlTemplate, placeholders(chunk.size()));
+
+            try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmnt.setInt(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = stmnt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(rs);
+                    }
+                }
+            }
+        }
+    }
+
+    private String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private List<Material> fetchMaterials(Connection conn, Integer projectId) throws SQLException {
+        String sql = MATERIALS_BY_PROJECT_SQL;
+        List<Material> materials = new ArrayList<>();
+
+        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+            stmnt.setInt(1, projectId);
+
+            try (ResultSet rs = stmnt.executeQuery()) {
+                while (rs.next()) {
+                    Material material = extractMaterial(rs);
+                    materials.add(material);
+                }
+            }
+        }
+
+        return materials;
+    }
+
+    private List<Step> fetchSteps(Connection conn, Integer projectId) throws SQLException {
+        String sql = STEPS_BY_PROJECT_SQL;
+        List<Step> steps = new ArrayList<>();
+
+        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+            stmnt.setInt(1, projectId);
+
+            try (ResultSet rs = stmnt.executeQuery()) {
+                while (rs.next()) {
+                    Step step = extractStep(rs);
+                    steps.add(step);
+                }
+            }
+        }
+
+        deferStepText(steps);
+        return steps;
+    }
+
+    /**
+     * Defers loading the notes of the given page of projects. The first project whose notes are read
+     * loads the notes of every project in the page that is still unloaded, in one query.
+     */
+    public void deferProjectNotes(List<Project> projects) {
+        for (Project project : projects) {
+            project.deferNotes(() -> loadProjectNotes(projects).get(project.getProjectId()));
+        }
+    }
+
+    /**
+     * Defers loading the text of the given page of steps. The first step whose text is read loads the
+     * text of every step in the page that is still unloaded, in one query.
+     */
+    public void deferStepText(List<Step> steps) {
+        for (Step step : steps) {
+            step.deferStepText(() -> loadStepText(steps).get(step.getStepId()));
+        }
+    }
+
+    public Map<Integer, String> loadProjectNotes(Collection<Project> projects) {
+        Map<Integer, Project> unloaded = new HashMap<>();
+
+        for (Project project : projects) {
+            if (!project.getLazyNotes().isLoaded()) {
+                unloaded.put(project.getProjectId(), project);
+            }
+        }
+
+        Map<Integer, String> notes = loadText(TextColumn.NOTES, unloaded.keySet());
+        unloaded.forEach((projectId, project) -> project.getLazyNotes().resolve(notes.get(projectId)));
+        return notes;
+    }
+
+    public Map<Integer, String> loadStepText(Collection<Step> steps) {
+        Map<Integer, Step> unloaded = new HashMap<>();
+
+        for (Step step : steps) {
+            if (!step.getLazyStepText().isLoaded()) {
+                unloaded.put(step.getStepId(), step);
+            }
+        }
+
+        Map<Integer, String> text = loadText(TextColumn.STEP_TEXT, unloaded.keySet());
+        unloaded.forEach((stepId, step) -> step.getLazyStepText().resolve(text.get(stepId)));
+        return text;
+    }
+
+    private Map<Integer, String> loadText(TextColumn column, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Integer, String> text = new HashMap<>();
+        Map<Integer, byte[]> compressedValues = new HashMap<>();
+
+        try {
+            inTransaction(TransactionOptions.readOnly(), conn -> {
+                boolean compressed = hasCompressedText(conn);
+                String sql = "SELECT " + column.idColumn + ", " + withCompressedColumn(column.textColumn, column, compressed)
+                        + " FROM " + column.tableName + " WHERE " + column.idColumn + " IN (%s)";
+
+                queryInChunks(conn, sql, new ArrayList<>(ids), rs -> {
+                    byte[] value = compressed ? rs.getBytes(3) : null;
+
+                    if (value == null) {
+                        text.put(rs.getInt(1), rs.getString(2));
+                    } else {
+                        compressedValues.put(rs.getInt(1), value);
+                    }
+                });
+
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        // The whole page was asked for, so compressed values are decompressed now, once the
+        // connection is given back, since an older dictionary is fetched on a connection of its own
+        compressedValues.forEach((id, value) -> text.put(id, TEXT_READER.decompress(value)));
+        return text;
+    }
+
+    /*
+     * Compressed notes are only decompressed when they are read.
+     */
+    private void readNotes(ResultSet rs, Project project, boolean compressed) throws SQLException {
+        byte[] notesZ = compressed ? rs.getBytes("notes_z") : null;
+
+        if (notesZ == null) {
+            project.setNotes(rs.getString("notes"));
+        } else {
+            project.deferNotes(() -> TEXT_READER.decompress(notesZ));
+        }
+    }
+
+    private static String withCompressedColumn(String columns, TextColumn column, boolean compressed) {
+        return compressed ? columns + ", " + column.compressedColumn : columns;
+    }
+
+    /*
+     * Whether the compressed text columns exist, checked once on the caller's connection. Until they
+     * do, no statement names them and no dictionary is read, so a database created before text
+     * compression keeps working.
+     */
+    private static boolean hasCompressedText(Connection conn) throws SQLException {
+        Boolean present = compressedText;
+
+        if (present == null) {
+            String sql = "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() "
+                    + "AND (table_name, column_name) IN ("
+                    + String.join(", ", Collections.nCopies(COMPRESSED_TEXT_COLUMNS.length, "(?, ?)")) + ")";
+
+            try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                int index = 1;
+
+                for (String[] column : COMPRESSED_TEXT_COLUMNS) {
+                    stmnt.setString(index++, column[0]);
+                    stmnt.setString(index++, column[2]);
+                }
+
+                try (ResultSet rs = stmnt.executeQuery()) {
+                    present = rs.next() && rs.getInt(1) == COMPRESSED_TEXT_COLUMNS.length;
+                }
+            }
+
+            compressedText = present;
+        }
+
+        return present;
+    }
+
+    /*
+     * The project writes for the schema. Once notes_z exists every write sets it, so that rewriting
+     * compressed notes also clears the old value.
+     */
+    private static EntityStatement<Project> projectInsert(Connection conn) throws SQLException {
+        if (!hasCompressedText(conn)) {
+            return INSERT_PROJECT;
+        }
+
+        textCodec(conn);
+        return INSERT_COMPRESSED_PROJECT;
+    }
+
+    private static EntityStatement<Project> projectUpdate(Connection conn, boolean checkVersion) throws SQLException {
+        if (!hasCompressedText(conn)) {
+            return checkVersion ? UPDATE_PROJECT_IF_VERSION : UPDATE_PROJECT;
+        }
+
+        textCodec(conn);
+        return checkVersion ? UPDATE_COMPRESSED_PROJECT_IF_VERSION : UPDATE_COMPRESSED_PROJECT;
+    }
+
+    /*
+     * The codec for new values, created on the first write that needs it. Its dictionary is read on
+     * the writer's connection, so the writer never waits for a second one while holding the first.
+     */
+    private static TextCodec textCodec(Connection conn) throws SQLException {
+        TextCodec codec = textCodec;
+
+        if (codec == null) {
+            byte[] dictionary = TEXT_COMPRESSION_THRESHOLD > 0 ? readDictionary(conn, null) : null;
+
+            synchronized (ProjectDao.class) {
+                if (textCodec == null) {
+                    textCodec = new TextCodec(TEXT_COMPRESSION_THRESHOLD, dictionary, ProjectDao::fetchDictionary);
+                }
+
+                codec = textCodec;
+            }
+        }
+
+        return codec;
+    }
+
+    /*
+     * Returns the dictionary with the checksum, or the newest one if the checksum is null.
+     */
+    private static byte[] readDictionary(Connection conn, Long checksum) throws SQLException {
+        String sql = "SELECT dictionary FROM " + TEXT_DICTIONARY_TABLE
+                + (checksum == null ? "" : " WHERE checksum = ?") + " ORDER BY dictionary_id DESC LIMIT 1";
+
+        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+            if (checksum != null) {
+                stmnt.setLong(1, checksum);
+            }
+
+            try (ResultSet rs = stmnt.executeQuery()) {
+                return rs.next() ? rs.getBytes(1) : null;
+            }
+        }
+    }
+
+    /*
+     * Fetches the dictionary a stored value names. Runs on its own connection because values are
+     * decompressed outside the transaction that read them.
+     */
+    private static byte[] fetchDictionary(long checksum) {
+        try (Connection conn = DbConnection.getConnection()) {
+            return readDictionary(conn, checksum);
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Adds the compressed text columns and the dictionary table to a database created before text
+     * compression, if they are missing, without blocking writes: the columns are added instantly to
+     * the hot tables and in place to the archive tables, whose compressed row format rules out
+     * instant changes, and making a column nullable is done in place. So this can run while the
+     * application is in use. A process that started before it keeps writing plain text until it is
+     * restarted, so turn compression on once every process has been.
+     */
+    public void ensureCompressedTextColumns() {
+        String sql = "SELECT column_name, is_nullable FROM information_schema.columns WHERE table_schema = DATABASE() "
+                + "AND table_name = ? AND column_name IN (?, ?)";
+
+        try (Connection conn = DbConnection.getConnection(); Statement ddl = conn.createStatement()) {
+            ddl.execute("CREATE TABLE IF NOT EXISTS " + TEXT_DICTIONARY_TABLE + " (dictionary_id INT AUTO_INCREMENT, "
+                    + "checksum BIGINT NOT NULL, dictionary BLOB NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (dictionary_id), "
+                    + "INDEX idx_text_dictionary_checksum (checksum))");
+
+            for (String[] column : COMPRESSED_TEXT_COLUMNS) {
+                boolean hasCompressedColumn = false;
+                boolean textNullable = true;
+
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setString(1, column[0]);
+                    stmnt.setString(2, column[1]);
+                    stmnt.setString(3, column[2]);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        while (rs.next()) {
+                            if (rs.getString(1).equalsIgnoreCase(column[2])) {
+                                hasCompressedColumn = true;
+                            } else {
+                                textNullable = rs.getString(2).equals("YES");
+                            }
+                        }
+                    }
+                }
+
+                if (!hasCompressedColumn) {
+                    ddl.execute("ALTER TABLE " + column[0] + " ADD COLUMN " + column[2] + " BLOB NULL, " + column[3]);
+                }
+
+                // A compressed row stores NULL in the text column
+                if (!textNullable) {
+                    ddl.execute("ALTER TABLE " + column[0] + " MODIFY " + column[1] + " TEXT NULL, ALGORITHM=INPLACE, LOCK=NONE");
+                }
+            }
+
+            compressedText = true;
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Trains a dictionary on up to {@code sampleSize} of the newest values of each text column that
+     * are long enough to be compressed, stores it and makes it the dictionary for new values.
+     *
+     * @return The dictionary's checksum, or null if there were too few samples to train on.
+     */
+    public Long trainTextDictionary(int sampleSize) {
+        try {
+            byte[] dictionary = inTransaction(TransactionOptions.readWrite(), conn -> {
+                List<String> samples = new ArrayList<>();
+
+                if (!hasCompressedText(conn)) {
+                    throw new DbException("The compressed text columns are missing; run ensureCompressedTextColumns() first.");
+                }
+
+                for (TextColumn column : TextColumn.values()) {
+                    String sql = "SELECT " + column.textColumn + " FROM " + column.tableName + " WHERE LENGTH("
+                            + column.textColumn + ") >= ? ORDER BY " + column.idColumn + " DESC LIMIT ?";
+
+                    try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                        stmnt.setInt(1, Math.max(1, TEXT_COMPRESSION_THRESHOLD));
+                        stmnt.setInt(2, sampleSize);
+
+                        try (ResultSet rs = stmnt.executeQuery()) {
+                            while (rs.next()) {
+                                samples.add(rs.getString(1));
+                            }
+                        }
+                    }
+                }
+
+                byte[] trained = TextCodec.train(samples, TextCodec.MAX_DICTIONARY_BYTES);
+
+                if (trained.length == 0) {
+                    return null;
+                }
+
+                String sql = "INSERT INTO " + TEXT_DICTIONARY_TABLE + " (checksum, dictionary) VALUES (?, ?)";
+
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setLong(1, TextCodec.checksum(trained));
+                    stmnt.setBytes(2, trained);
+                    stmnt.executeUpdate();
+                }
+
+                return trained;
+            });
+
+            if (dictionary == null) {
+                return null;
+            }
+
+            // The next write compresses with the new dictionary
+            textCodec = new TextCodec(TEXT_COMPRESSION_THRESHOLD, dictionary, ProjectDao::fetchDictionary);
+            return TextCodec.checksum(dictionary);
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * @return Whether long text values are stored compressed, which the
+     *         projects.textCompressionThreshold system property turns on.
+     */
+    public static boolean isTextCompressionOn() {
+        return TEXT_COMPRESSION_THRESHOLD > 0;
+    }
+
+    /**
+     * Compresses the long values among the next {@code limit} rows of the column after the given ID,
+     * in one short transaction. A row is only rewritten if its text is byte for byte what was read
+     * and, for a project, its row version has not moved; the row version is left alone since the
+     * content is the same.
+     *
+     * @return The highest ID examined, or -1 when there are no rows after the given ID.
+     */
+    public int compressTextChunk(TextColumn column, int afterId, int limit) {
+        boolean versioned = column.versionColumn != null;
+        String selectSql = "SELECT " + column.idColumn + ", CASE WHEN " + column.compressedColumn + " IS NULL AND LENGTH("
+                + column.textColumn + ") >= ? THEN " + column.textColumn + " END" + (versioned ? ", " + column.versionColumn : "")
+                + " FROM " + column.tableName + " WHERE " + column.idColumn + " > ? ORDER BY " + column.idColumn + " LIMIT " + limit;
+        // The text column's collation ignores case and accents, so it is compared as bytes
+        String updateSql = "UPDATE " + column.tableName + " SET " + column.textColumn + " = NULL, " + column.compressedColumn
+                + " = ? WHERE " + column.idColumn + " = ? AND " + column.compressedColumn + " IS NULL AND CAST("
+                + column.textColumn + " AS BINARY) = ?" + (versioned ? " AND " + column.versionColumn + " = ?" : "");
+
+        if (!isTextCompressionOn()) {
+            throw new DbException("Text compression is turned off.");
+        }
+
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                int lastId = -1;
+
+                if (!hasCompressedText(conn)) {
+                    throw new DbException("The compressed text columns are missing; run ensureCompressedTextColumns() first.");
+                }
+
+                TextCodec codec = textCodec(conn);
+
+                try (PreparedStatement select = conn.prepareStatement(selectSql);
+                     PreparedStatement update = conn.prepareStatement(updateSql)) {
+                    select.setInt(1, TEXT_COMPRESSION_THRESHOLD);
+                    select.setInt(2, afterId);
+                    boolean pending = false;
+
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            lastId = rs.getInt(1);
+                            String text = rs.getString(2);
+
+                            if (text != null) {
+                                update.setBytes(1, codec.compress(text));
+                                update.setInt(2, lastId);
+                                update.setBytes(3, text.getBytes(StandardCharsets.UTF_8));
+
+                                if (versioned) {
+                                    update.setInt(4, rs.getInt(3));
+                                }
+
+                                update.addBatch();
+                                pending = true;
+                            }
+                        }
+                    }
+
+                    if (pending) {
+                        update.executeBatch();
+                    }
+                }
+
+                return lastId;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * The large text columns that can be stored compressed.
+     */
+    public enum TextColumn {
+        NOTES(PROJECT_TABLE, "project_id", "notes", "notes_z", "row_version"),
+        STEP_TEXT(STEP_TABLE, "step_id", "step_text", "step_text_z", null);
+
+        private final String tableName;
+        private final String idColumn;
+        private final String textColumn;
+        private final String compressedColumn;
+        private final String versionColumn;
+
+        TextColumn(String tableName, String idColumn, String textColumn, String compressedColumn, String versionColumn) {
+            this.tableName = tableName;
+            this.idColumn = idColumn;
+            this.textColumn = textColumn;
+            this.compressedColumn = compressedColumn;
+            this.versionColumn = versionColumn;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+    }
+
+    private List<Category> fetchCategories(Connection conn, Integer projectId) throws SQLException {
+        String sql = CATEGORIES_BY_PROJECT_SQL;
+        List<Category> categories = new ArrayList<>();
+
+        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+            stmnt.setInt(1, projectId);
+
+            try (ResultSet rs = stmnt.executeQuery()) {
+                while (rs.next()) {
+                    Category category = extractCategory(rs);
+                    categories.add(category);
+                }
+            }
+        }
+
+        return categories;
+    }
+
+    private Project extractProject(ResultSet rs) throws SQLException {
+        Project project = new Project();
+        project.setProjectId(rs.getInt("project_id"));
+        project.setProjectName(rs.getString("project_name"));
+        project.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
+        project.setActualHours(rs.getBigDecimal("actual_hours"));
+        project.setDifficulty(rs.getInt("difficulty"));
+        project.setRowVersion(rs.getInt("row_version"));
+        return project;
+    }
+
+    private void readTimestamps(ResultSet rs, Project project) throws SQLException {
+        project.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        project.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+    }
+
+    private Material extractMaterial(ResultSet rs) throws SQLException {
+        Material material = new Material();
+        material.setMaterialId(rs.getInt("material_id"));
+        material.setProjectId(rs.getInt("project_id"));
+        material.setName(rs.getString("material_name"));
+        return material;
+    }
+
+    private Step extractStep(ResultSet rs) throws SQLException {
+        Step step = new Step();
+        step.setStepId(rs.getInt("step_id"));
+        step.setProjectId(rs.getInt("project_id"));
+        step.setStepOrder(rs.getInt("step_order"));
+        return step;
+    }
+
+    private Category extractCategory(ResultSet rs) throws SQLException {
+        Category category = new Category();
+        category.setCategoryId(rs.getInt("category_id"));
+        category.setCategoryName(rs.getString("category_name"));
+        return category;
+    }
+
+    /**
+     * Updates the project's scalar columns and increments its row version. If the project carries a
+     * row version, the update only succeeds if the row still has that version (optimistic locking).
+     */
+    public boolean modifyProjectDetails(Project updatedProject) {
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                EntityStatement<Project> update = projectUpdate(conn, updatedProject.getRowVersion() != null);
+
+                try (PreparedStatement stmnt = conn.prepareStatement(update.getSql())) {
+                    update.bind(stmnt, updatedProject);
+
+                    if (stmnt.executeUpdate() == 0) {
+                        return false; // The project does not exist or has a different version
+                    }
+                }
+
+                appendChange(conn, updatedProject.getProjectId(), ProjectChange.Type.UPDATE);
+                return true;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Marks the project deleted and returns at once. Reads no longer see it; its rows and children
+     * are removed later, in small chunks, by {@link ProjectPurger}.
+     */
+    public boolean deleteProject(Integer projectId) {
+        String sql = SOFT_DELETE_SQL;
+
+        try {
+            // The caller reports the outcome; printing here would land in benchmarks and batch output
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setInt(1, projectId);
+
+                    if (stmnt.executeUpdate() == 0) {
+                        return false;
+                    }
+                }
+
+                appendChange(conn, projectId, ProjectChange.Type.DELETE);
+                return true;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Marks the projects deleted, like {@link #deleteProject(Integer)}, in chunks of at most
+     * {@link #BULK_CHUNK_SIZE} projects. See {@link #applyToIds} for how chunks commit and fail.
+     */
+    public BulkResult deleteProjects(Collection<Integer> projectIds) {
+        return applyToIds(projectIds, ProjectChange.Type.DELETE, this::softDeleteLocked);
+    }
+
+    /**
+     * Brings back soft-deleted projects that have not been purged yet. Like any other write it moves
+     * the row version and change time and logs the change, so caches and delta sync see the projects
+     * again; any tombstone for them is removed in the same transaction.
+     *
+     * @return The number of projects restored.
+     */
+    public int restoreProjects(Collection<Integer> projectIds) {
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(projectIds));
+
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                List<Integer> restored = new ArrayList<>();
+
+                queryInChunks(conn, "SELECT project_id FROM " + PROJECT_TABLE
+                        + " WHERE project_id IN (%s) AND deleted_at IS NOT NULL FOR UPDATE", ids, rs -> restored.add(rs.getInt(1)));
+
+                if (restored.isEmpty()) {
+                    return 0;
+                }
+
+                updateInChunks(conn, "UPDATE " + PROJECT_TABLE + " SET deleted_at=NULL, row_version=row_version+1, " + TOUCH
+                        + " WHERE project_id IN (%s)", restored);
+                updateInChunks(conn, "DELETE FROM " + PROJECT_TOMBSTONE_TABLE + " WHERE project_id IN (%s)", restored);
+                appendChanges(conn, restored, ProjectChange.Type.UPDATE);
+                return restored.size();
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
 
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+    /**
+     * Marks every live project matching the filter deleted. See {@link #applyWhere}.
+     */
+    public BulkResult deleteProjectsWhere(ProjectFilter filter) {
+        return applyWhere(filter, ProjectChange.Type.DELETE, this::softDeleteLocked);
+    }
+
+    /**
+     * Sets the columns in the update on each project with one statement per chunk and increments
+     * the row versions. Row versions are not checked.
+     */
+    public BulkResult updateProjects(Collection<Integer> projectIds, BulkUpdate update) {
+        return applyToIds(projectIds, ProjectChange.Type.UPDATE, (conn, ids) -> updateLocked(conn, ids, update));
+    }
+
+    public BulkResult updateProjectsWhere(ProjectFilter filter, BulkUpdate update) {
+        return applyWhere(filter, ProjectChange.Type.UPDATE, (conn, ids) -> updateLocked(conn, ids, update));
+    }
+
+    /**
+     * Links each project to the categories. If {@code replace} is set, the project's other category
+     * links are removed. Category IDs that do not exist are ignored.
+     */
+    public BulkResult assignCategories(Collection<Integer> projectIds, Collection<Integer> categoryIds, boolean replace) {
+        return applyToIds(projectIds, ProjectChange.Type.UPDATE,
+                (conn, ids) -> assignCategoriesLocked(conn, ids, List.copyOf(categoryIds), replace));
+    }
+
+    public BulkResult assignCategoriesWhere(ProjectFilter filter, Collection<Integer> categoryIds, boolean replace) {
+        return applyWhere(filter, ProjectChange.Type.UPDATE,
+                (conn, ids) -> assignCategoriesLocked(conn, ids, List.copyOf(categoryIds), replace));
+    }
+
+    /*
+     * The set-based statements of a bulk operation, run on projects whose rows are already locked.
+     */
+    private interface BulkOperation {
+        void apply(Connection conn, List<Integer> lockedIds) throws SQLException;
+    }
+
+    /**
+     * Runs the operation on the projects, lowest ID first, in chunks of at most
+     * {@link #BULK_CHUNK_SIZE}. Each chunk is one transaction: it locks the chunk's live projects,
+     * changes them with set-based statements and logs the changes, so no lock is held for longer
+     * than one chunk takes. If a chunk fails after its retries, its projects are reported as failed
+     * and the remaining chunks still run; chunks that committed stay committed.
+     */
+    private BulkResult applyToIds(Collection<Integer> projectIds, ProjectChange.Type type, BulkOperation operation) {
+        // Locking in primary key order keeps concurrent bulk operations from deadlocking each other
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(projectIds));
+        String lockSql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE project_id IN (%s) AND " + NOT_DELETED
+                + " ORDER BY project_id FOR UPDATE";
+        BulkResult result = new BulkResult();
+
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
 
-            try (PreparedStatement stmnt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
-                stmnt.setString(1, project.getProjectName());
-                stmnt.setBigDecimal(2, project.getEstimatedHours());
-                stmnt.setBigDecimal(3, project.getActualHours());
-                stmnt.setInt(4, project.getDifficulty());
-                stmnt.setString(5, project.getNotes());
+            try {
+                List<Integer> locked = inTransaction(TransactionOptions.readWrite(), conn -> {
+                    List<Integer> found = new ArrayList<>();
+                    queryInChunks(conn, lockSql, chunk, rs -> found.add(rs.getInt(1)));
+                    applyLocked(conn, found, type, operation);
+                    return found;
+                });
 
-                int rowsAffected = stmnt.executeUpdate();
+                Set<Integer> applied = new HashSet<>(locked);
 
-                if (rowsAffected == 0) {
-                    rollbackTransaction(conn);
-                    return null; // Insertion failed
+                for (Integer projectId : chunk) {
+                    result.record(projectId, applied.contains(projectId) ? BulkResult.Outcome.APPLIED
+                            : BulkResult.Outcome.NOT_FOUND);
                 }
+            } catch (SQLException | DbException e) {
+                for (Integer projectId : chunk) {
+                    result.recordFailure(projectId, e.getMessage());
+                }
+            }
+        }
 
-                // Retrieve the generated project_id
-                try (ResultSet generatedKeys = stmnt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        project.setProjectId(generatedKeys.getInt(1));
-                    } else {
-                        rollbackTransaction(conn);
-                        return null; // Failed to retrieve generated project_id
+        return result;
+    }
+
+    /**
+     * Runs the operation on every live project matching the filter, walking them by ID in chunks of
+     * at most {@link #BULK_CHUNK_SIZE}, each locked and changed in its own transaction. The filter is
+     * evaluated per chunk, so projects that stop matching before their chunk runs are left alone. The
+     * result lists only the projects that were changed.
+     *
+     * @throws DbException If a chunk fails after its retries. Earlier chunks stay committed, so
+     *         running the operation again picks up where it stopped.
+     */
+    private BulkResult applyWhere(ProjectFilter filter, ProjectChange.Type type, BulkOperation operation) {
+        String lockSql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE " + NOT_DELETED + " AND project_id > ? AND ("
+                + filter.getPredicate() + ") ORDER BY project_id LIMIT " + BULK_CHUNK_SIZE + " FOR UPDATE";
+        BulkResult result = new BulkResult();
+        int afterId = 0;
+
+        try {
+            while (true) {
+                int from = afterId;
+
+                List<Integer> locked = inTransaction(TransactionOptions.readWrite(), conn -> {
+                    List<Integer> found = new ArrayList<>();
+
+                    try (PreparedStatement stmnt = conn.prepareStatement(lockSql)) {
+                        stmnt.setInt(1, from);
+                        bindValues(stmnt, 2, filter.getParameters());
+
+                        try (ResultSet rs = stmnt.executeQuery()) {
+                            while (rs.next()) {
+                                found.add(rs.getInt(1));
+                            }
+                        }
                     }
+
+                    applyLocked(conn, found, type, operation);
+                    return found;
+                });
+
+                locked.forEach(projectId -> result.record(projectId, BulkResult.Outcome.APPLIED));
+
+                if (locked.size() < BULK_CHUNK_SIZE) {
+                    return result;
                 }
-            } catch (SQLException e) {
-                rollbackTransaction(conn);
-                throw new DbException(e);
-            }
 
-            commitTransaction(conn);
-            return project; // Project added successfully
+                afterId = locked.get(locked.size() - 1);
+            }
         } catch (SQLException e) {
             throw new DbException(e);
         }
     }
 
+    private void applyLocked(Connection conn, List<Integer> lockedIds, ProjectChange.Type type, BulkOperation operation)
+            throws SQLException {
+        if (!lockedIds.isEmpty()) {
+            operation.apply(conn, lockedIds);
+            appendChanges(conn, lockedIds, type);
+        }
+    }
+
+    private void softDeleteLocked(Connection conn, List<Integer> ids) throws SQLException {
+        updateInChunks(conn, "UPDATE " + PROJECT_TABLE + " SET deleted_at=CURRENT_TIMESTAMP, row_version=row_version+1, "
+                + TOUCH + " WHERE project_id IN (%s)", ids);
+    }
 
-    public List<Project> fetchAllProjects() {
-        String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
-        List<Project> projects = new ArrayList<>();
+    private void updateLocked(Connection conn, List<Integer> ids, BulkUpdate update) throws SQLException {
+        Map<String, Object> assignments = update.getAssignments();
+        StringBuilder sql = new StringBuilder("UPDATE " + PROJECT_TABLE + " SET ");
 
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+        for (String column : assignments.keySet()) {
+            sql.append(column).append(" = ?, ");
+        }
 
-            try (PreparedStatement stmnt = conn.prepareStatement(sql);
-                 ResultSet rs = stmnt.executeQuery()) {
+        sql.append("row_version = row_version + 1, ").append(TOUCH).append(" WHERE project_id IN (").append(placeholders(ids.size())).append(")");
 
-                while (rs.next()) {
-                    Project project = extractProject(rs);
-                    projects.add(project);
+        try (PreparedStatement stmnt = conn.prepareStatement(sql.toString())) {
+            List<Object> parameters = new ArrayList<>(assignments.values());
+            parameters.addAll(ids);
+            bindValues(stmnt, 1, parameters);
+            stmnt.executeUpdate();
+        }
+    }
+
+    private void assignCategoriesLocked(Connection conn, List<Integer> ids, List<Integer> categoryIds, boolean replace)
+            throws SQLException {
+        if (replace) {
+            updateInChunks(conn, "DELETE FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id IN (%s)", ids);
+        }
+
+        if (!categoryIds.isEmpty()) {
+            String sql = "INSERT INTO " + PROJECT_CATEGORY_TABLE + " (project_id, category_id)"
+                    + " SELECT p.project_id, c.category_id FROM " + PROJECT_TABLE + " p JOIN " + CATEGORY_TABLE + " c"
+                    + " ON c.category_id IN (" + placeholders(categoryIds.size()) + ")"
+                    + " WHERE p.project_id IN (" + placeholders(ids.size()) + ") AND NOT EXISTS (SELECT 1 FROM "
+                    + PROJECT_CATEGORY_TABLE + " pc WHERE pc.project_id = p.project_id AND pc.category_id = c.category_id)";
+
+            try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                List<Object> parameters = new ArrayList<>(categoryIds);
+                parameters.addAll(ids);
+                bindValues(stmnt, 1, parameters);
+                stmnt.executeUpdate();
+            }
+        }
+
+        // The categories are part of the project graph, so cached copies must see a new version
+        updateInChunks(conn, "UPDATE " + PROJECT_TABLE + " SET row_version=row_version+1, " + TOUCH
+                + " WHERE project_id IN (%s)", ids);
+    }
+
+    private void bindValues(PreparedStatement stmnt, int firstIndex, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            setParameter(stmnt, firstIndex + i, values.get(i), values.get(i).getClass());
+        }
+    }
+
+    /**
+     * Applies write journal entries in order in one transaction. An entry's idempotency key is
+     * recorded with its outcome in the same transaction, and entries whose key is already recorded
+     * are skipped, so a batch replayed after a crash changes nothing twice. A modify that finds the
+     * project missing or at another row version is recorded as a conflict, not an error.
+     */
+    public void applyJournalEntries(List<JournalEntry> entries) {
+        String appliedSql = "SELECT idempotency_key FROM " + JOURNAL_APPLIED_TABLE + " WHERE idempotency_key IN ("
+                + placeholders(entries.size()) + ")";
+
+        try {
+            inTransaction(TransactionOptions.readWrite(), conn -> {
+                Set<String> applied = new HashSet<>();
+
+                try (PreparedStatement stmnt = conn.prepareStatement(appliedSql)) {
+                    for (int i = 0; i < entries.size(); i++) {
+                        stmnt.setString(i + 1, entries.get(i).getIdempotencyKey());
+                    }
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        while (rs.next()) {
+                            applied.add(rs.getString(1));
+                        }
+                    }
                 }
 
-            } catch (SQLException e) {
-                rollbackTransaction(conn);
-                System.err.println("Error executing SQL query: " + e.getMessage());
-                throw new DbException(e);
+                for (JournalEntry entry : entries) {
+                    if (applied.contains(entry.getIdempotencyKey())) {
+                        continue;
+                    }
+
+                    Project project = entry.getProject();
+                    JournalEntry.Outcome outcome = entry.getType() == JournalEntry.Type.ADD
+                            ? applyJournaledAdd(conn, project)
+                            : applyJournaledModify(conn, project);
+
+                    recordJournalOutcome(conn, entry.getIdempotencyKey(), project.getProjectId(), outcome, null);
+                }
+
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private JournalEntry.Outcome applyJournaledAdd(Connection conn, Project project) throws SQLException {
+        EntityStatement<Project> insert = projectInsert(conn);
+
+        try (PreparedStatement stmnt = conn.prepareStatement(insert.getSql(), PreparedStatement.RETURN_GENERATED_KEYS)) {
+            insert.bind(stmnt, project);
+            stmnt.executeUpdate();
+
+            try (ResultSet generatedKeys = stmnt.getGeneratedKeys()) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Unable to retrieve the generated project ID.");
+                }
+
+                project.setProjectId(generatedKeys.getInt(1));
             }
+        }
 
-            commitTransaction(conn);
-            return projects;
+        appendChange(conn, project.getProjectId(), ProjectChange.Type.INSERT);
+        return JournalEntry.Outcome.APPLIED;
+    }
+
+    private JournalEntry.Outcome applyJournaledModify(Connection conn, Project project) throws SQLException {
+        EntityStatement<Project> update = projectUpdate(conn, project.getRowVersion() != null);
+
+        try (PreparedStatement stmnt = conn.prepareStatement(update.getSql())) {
+            update.bind(stmnt, project);
+
+            if (stmnt.executeUpdate() == 0) {
+                return JournalEntry.Outcome.CONFLICT;
+            }
+        }
+
+        appendChange(conn, project.getProjectId(), ProjectChange.Type.UPDATE);
+        return JournalEntry.Outcome.APPLIED;
+    }
+
+    /**
+     * Records a journal entry that MySQL refused, so that it is not retried.
+     */
+    public void rejectJournalEntry(JournalEntry entry, String reason) {
+        try {
+            inTransaction(TransactionOptions.readWrite(), conn -> {
+                recordJournalOutcome(conn, entry.getIdempotencyKey(), entry.getProject().getProjectId(),
+                        JournalEntry.Outcome.REJECTED, reason);
+                return null;
+            });
         } catch (SQLException e) {
-            System.err.println("Error establishing database connection: " + e.getMessage());
             throw new DbException(e);
         }
     }
 
-    private List<Material> fetchMaterials(Connection conn, Integer projectId) throws SQLException {
-        String sql = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
-        List<Material> materials = new ArrayList<>();
+    private void recordJournalOutcome(Connection conn, String key, Integer projectId, JournalEntry.Outcome outcome,
+            String detail) throws SQLException {
+        String sql = "INSERT INTO " + JOURNAL_APPLIED_TABLE + " (idempotency_key, project_id, outcome, detail)"
+                + " VALUES (?, ?, ?, ?)";
 
         try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-            stmnt.setInt(1, projectId);
+            setParameter(stmnt, 1, key, String.class);
+            setParameter(stmnt, 2, projectId, Integer.class);
+            setParameter(stmnt, 3, outcome.name(), String.class);
+            setParameter(stmnt, 4, detail == null || detail.length() <= 255 ? detail : detail.substring(0, 255), String.class);
+            stmnt.executeUpdate();
+        }
+    }
 
-            try (ResultSet rs = stmnt.executeQuery()) {
-                while (rs.next()) {
-                    Material material = extractMaterial(rs);
-                    materials.add(material);
+    /**
+     * Returns the outcome of a journal entry, or null if it has not been applied yet.
+     */
+    public JournalEntry.Outcome fetchJournalOutcome(String idempotencyKey) {
+        String value = fetchJournalColumn("outcome", idempotencyKey);
+        return value == null ? null : JournalEntry.Outcome.valueOf(value);
+    }
+
+    /**
+     * Returns the ID of the project a journal entry wrote, which for an add is only known once the
+     * entry has been applied. Null if the entry has not been applied or was rejected.
+     */
+    public Integer fetchJournaledProjectId(String idempotencyKey) {
+        String value = fetchJournalColumn("project_id", idempotencyKey);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private String fetchJournalColumn(String column, String idempotencyKey) {
+        String sql = "SELECT " + column + " FROM " + JOURNAL_APPLIED_TABLE + " WHERE idempotency_key = ?";
+
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setString(1, idempotencyKey);
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        return rs.next() ? rs.getString(1) : null;
+                    }
                 }
-            }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
         }
+    }
 
-        return materials;
+    // Every write logs a change, so this is where written projects leave the session's identity map
+    private void evictFromSession(Integer projectId) {
+        ProjectSession session = ProjectSession.current();
+
+        if (session != null) {
+            session.evict(projectId);
+        }
     }
 
-    private List<Step> fetchSteps(Connection conn, Integer projectId) throws SQLException {
-        String sql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ?";
-        List<Step> steps = new ArrayList<>();
+    /**
+     * Records a write in the change log. It must be called on the connection, and in the
+     * transaction, of the write itself so that the entry commits or rolls back with it.
+     */
+    private void appendChange(Connection conn, Integer projectId, ProjectChange.Type type) throws SQLException {
+        String sql = "INSERT INTO " + CHANGE_LOG_TABLE + " (project_id, change_type) VALUES (?, ?)";
+        evictFromSession(projectId);
 
         try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
             stmnt.setInt(1, projectId);
+            stmnt.setString(2, type.getCode());
+            stmnt.executeUpdate();
+        }
+    }
 
-            try (ResultSet rs = stmnt.executeQuery()) {
-                while (rs.next()) {
-                    Step step = extractStep(rs);
-                    steps.add(step);
-                }
+    private void appendChanges(Connection conn, List<Integer> projectIds, ProjectChange.Type type) throws SQLException {
+        String sql = "INSERT INTO " + CHANGE_LOG_TABLE + " (project_id, change_type) VALUES (?, ?)";
+        projectIds.forEach(this::evictFromSession);
+
+        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+            for (Integer projectId : projectIds) {
+                stmnt.setInt(1, projectId);
+                stmnt.setString(2, type.getCode());
+                stmnt.addBatch();
             }
+
+            stmnt.executeBatch();
         }
+    }
 
-        return steps;
+    /**
+     * Returns at most {@code limit} project changes after the watermark, in change order: projects
+     * inserted or updated, read whole with their children, and tombstones for deleted projects. Pass
+     * the returned watermark to the next call. The cost follows the number of changes, not the size
+     * of the tables, since every source is read by a range scan of its change time index.
+     *
+     * A change is only returned once it is {@link #SYNC_SETTLE_MILLIS} old. The change time is taken
+     * when a write runs, not when it commits, so a slow transaction can commit a time older than
+     * changes already handed out; holding back the newest changes keeps the watermark from passing
+     * it. Interactive writes run under deadlines well inside that margin.
+     *
+     * @throws IllegalArgumentException If the limit is not between 1 and {@link ProjectDelta#MAX_LIMIT}.
+     */
+    public ProjectDelta fetchProjectDelta(SyncWatermark since, int limit) {
+        if (limit < 1 || limit > ProjectDelta.MAX_LIMIT) {
+            throw new IllegalArgumentException("The page size must be between 1 and " + ProjectDelta.MAX_LIMIT + ": " + limit);
+        }
+
+        try {
+            // One read-only transaction gives the sources and the graphs the same view of the data
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                LocalDateTime horizon;
+
+                try (PreparedStatement stmnt = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(6)");
+                     ResultSet rs = stmnt.executeQuery()) {
+                    rs.next();
+                    horizon = rs.getObject(1, LocalDateTime.class).minus(Duration.ofMillis(SYNC_SETTLE_MILLIS));
+                }
+
+                List<DeltaRow> rows = new ArrayList<>();
+                boolean sourceFull = false;
+
+                for (DeltaSource source : DeltaSource.values()) {
+                    sourceFull |= readDeltaRows(conn, source, since, horizon, limit, rows) == limit;
+                }
+
+                rows.sort(Comparator.comparing((DeltaRow row) -> row.changedAt).thenComparingInt(row -> row.projectId));
+                boolean more = sourceFull || rows.size() > limit;
+                List<DeltaRow> page = rows.subList(0, Math.min(limit, rows.size()));
+
+                Map<DeltaSource, List<Integer>> idsBySource = new EnumMap<>(DeltaSource.class);
+                page.forEach(row -> idsBySource.computeIfAbsent(row.source, source -> new ArrayList<>()).add(row.projectId));
+
+                Map<Integer, Project> graphs = new HashMap<>();
+                graphs.putAll(readProjectGraphs(conn, idsBySource.getOrDefault(DeltaSource.HOT, List.of()), Tier.HOT));
+                graphs.putAll(readProjectGraphs(conn, idsBySource.getOrDefault(DeltaSource.ARCHIVE, List.of()), Tier.ARCHIVE));
+
+                List<Project> changed = new ArrayList<>();
+                List<Integer> deleted = new ArrayList<>();
+
+                for (DeltaRow row : page) {
+                    if (row.deleted) {
+                        deleted.add(row.projectId);
+                    } else {
+                        changed.add(graphs.get(row.projectId));
+                    }
+                }
+
+                SyncWatermark next;
+
+                if (more) {
+                    DeltaRow last = page.get(page.size() - 1);
+                    next = new SyncWatermark(last.changedAt, last.projectId);
+                } else {
+                    // Everything before the horizon has been read; start the next call from there
+                    next = since.isBefore(horizon) ? new SyncWatermark(horizon, 0) : since;
+                }
+
+                return new ProjectDelta(changed, deleted, next, more);
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
     }
 
-    private List<Category> fetchCategories(Connection conn, Integer projectId) throws SQLException {
-        String sql = "SELECT c.* FROM " + CATEGORY_TABLE + " c " +
-                     "JOIN " + PROJECT_CATEGORY_TABLE + " pc ON c.category_id = pc.category_id " +
-                     "WHERE pc.project_id = ?";
-        List<Category> categories = new ArrayList<>();
+    /*
+     * Reads up to limit changes from one source, after the watermark and before the horizon, in
+     * (change time, project ID) order. Returns the number of rows read.
+     */
+    private int readDeltaRows(Connection conn, DeltaSource source, SyncWatermark since, LocalDateTime horizon, int limit,
+            List<DeltaRow> rows) throws SQLException {
+        String column = source.changedAtColumn;
+        String sql = "SELECT project_id, " + column + ", " + source.deletedExpression + " FROM " + source.tableName
+                + " WHERE " + column + " >= ? AND (" + column + " > ? OR project_id > ?) AND " + column + " < ?"
+                + " ORDER BY " + column + ", project_id LIMIT ?";
+        int count = 0;
 
         try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-            stmnt.setInt(1, projectId);
+            setParameter(stmnt, 1, since.getChangedAt(), LocalDateTime.class);
+            setParameter(stmnt, 2, since.getChangedAt(), LocalDateTime.class);
+            stmnt.setInt(3, since.getProjectId());
+            setParameter(stmnt, 4, horizon, LocalDateTime.class);
+            stmnt.setInt(5, limit);
 
             try (ResultSet rs = stmnt.executeQuery()) {
                 while (rs.next()) {
-                    Category category = extractCategory(rs);
-                    categories.add(category);
+                    rows.add(new DeltaRow(source, rs.getInt(1), rs.getObject(2, LocalDateTime.class), rs.getBoolean(3)));
+                    count++;
                 }
             }
         }
 
-        return categories;
+        return count;
     }
 
-    private Project extractProject(ResultSet rs) throws SQLException {
-        Project project = new Project();
-        project.setProjectId(rs.getInt("project_id"));
-        project.setProjectName(rs.getString("project_name"));
-        project.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
-        project.setActualHours(rs.getBigDecimal("actual_hours"));
-        project.setDifficulty(rs.getInt("difficulty"));
-        project.setNotes(rs.getString("notes"));
-        return project;
-    }
+    /*
+     * Where changes are found. A project is in exactly one source at a time, with the same change
+     * time: soft-deleted projects stay in the hot table until purged, and purging and archiving move
+     * the change time along with the project.
+     */
+    private enum DeltaSource {
+        HOT(PROJECT_TABLE, "updated_at", "deleted_at IS NOT NULL"),
+        ARCHIVE(PROJECT_ARCHIVE_TABLE, "updated_at", "FALSE"),
+        TOMBSTONE(PROJECT_TOMBSTONE_TABLE, "deleted_at", "TRUE");
 
-    private Material extractMaterial(ResultSet rs) throws SQLException {
-        Material material = new Material();
-        material.setMaterialId(rs.getInt("material_id"));
-        material.setProjectId(rs.getInt("project_id"));
-        material.setName(rs.getString("material_name"));
-        return material;
+        private final String tableName;
+        private final String changedAtColumn;
+        private final String deletedExpression;
+
+        DeltaSource(String tableName, String changedAtColumn, String deletedExpression) {
+            this.tableName = tableName;
+            this.changedAtColumn = changedAtColumn;
+            this.deletedExpression = deletedExpression;
+        }
     }
 
-    private Step extractStep(ResultSet rs) throws SQLException {
-        Step step = new Step();
-        step.setStepId(rs.getInt("step_id"));
-        step.setProjectId(rs.getInt("project_id"));
-        step.setStepText(rs.getString("step_text"));
-        step.setStepOrder(rs.getInt("step_order"));
-        return step;
+    private static final class DeltaRow {
+        private final DeltaSource source;
+        private final int projectId;
+        private final LocalDateTime changedAt;
+        private final boolean deleted;
+
+        private DeltaRow(DeltaSource source, int projectId, LocalDateTime changedAt, boolean deleted) {
+            this.source = source;
+            this.projectId = projectId;
+            this.changedAt = changedAt;
+            this.deleted = deleted;
+        }
     }
 
-    private Category extractCategory(ResultSet rs) throws SQLException {
-        Category category = new Category();
-        category.setCategoryId(rs.getInt("category_id"));
-        category.setCategoryName(rs.getString("category_name"));
-        return category;
+    public long fetchLatestChangeSequence() {
+        String sql = "SELECT COALESCE(MAX(change_seq), 0) FROM " + CHANGE_LOG_TABLE;
+
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql);
+                     ResultSet rs = stmnt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0L;
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
     }
 
-    public boolean modifyProjectDetails(Project updatedProject) {
-        String sql = "UPDATE " + PROJECT_TABLE + " SET project_name=?, estimated_hours=?, actual_hours=?, " +
-                     "difficulty=?, notes=? WHERE project_id=?";
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+    public List<ProjectChange> fetchChangesSince(long sequence, int limit) {
+        String sql = "SELECT change_seq, project_id, change_type FROM " + CHANGE_LOG_TABLE
+                + " WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
 
-            try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-                stmnt.setString(1, updatedProject.getProjectName());
-                stmnt.setBigDecimal(2, updatedProject.getEstimatedHours());
-                stmnt.setBigDecimal(3, updatedProject.getActualHours());
-                stmnt.setInt(4, updatedProject.getDifficulty());
-                stmnt.setString(5, updatedProject.getNotes());
-                stmnt.setInt(6, updatedProject.getProjectId());
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                List<ProjectChange> changes = new ArrayList<>();
 
-                int rowsAffected = stmnt.executeUpdate();
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setLong(1, sequence);
+                    stmnt.setInt(2, limit);
 
-                if (rowsAffected == 0) {
-                    rollbackTransaction(conn);
-                    return false; // The project does not exist
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        while (rs.next()) {
+                            changes.add(new ProjectChange(rs.getLong("change_seq"), rs.getInt("project_id"),
+                                    ProjectChange.Type.fromCode(rs.getString("change_type"))));
+                        }
+                    }
                 }
-            } catch (SQLException e) {
-                rollbackTransaction(conn);
-                throw new DbException(e);
-            }
 
-            commitTransaction(conn);
-            return true; // Project updated successfully
+                return changes;
+            });
         } catch (SQLException e) {
             throw new DbException(e);
         }
     }
 
-    public boolean deleteProject(Integer projectId) {
-        String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id=?";
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+    /**
+     * Deletes change log entries older than the retention period, a bounded number of rows per
+     * transaction so the compaction never holds locks for long.
+     *
+     * @return The number of entries deleted.
+     */
+    public int compactChangeLog(Duration retention) {
+        String sql = "DELETE FROM " + CHANGE_LOG_TABLE + " WHERE changed_at < ? ORDER BY change_seq LIMIT "
+                + CHANGE_LOG_COMPACT_BATCH;
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int total = 0;
+        int deleted;
 
-            try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-                stmnt.setInt(1, projectId);
+        try {
+            do {
+                deleted = inTransaction(TransactionOptions.readWrite(), conn -> {
+                    try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                        stmnt.setTimestamp(1, cutoff);
+                        return stmnt.executeUpdate();
+                    }
+                });
+                total += deleted;
+            } while (deleted == CHANGE_LOG_COMPACT_BATCH);
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        return total;
+    }
+
+    /**
+     * Moves at most {@code limit} live projects matching the policy, lowest ID first, with their
+     * steps, materials and category links, to the archive tables in one transaction. The selected
+     * project rows are locked, so a concurrent update either commits before the move or finds the
+     * project gone.
+     *
+     * @return The number of projects archived. Less than the limit means no more projects match.
+     */
+    public int archiveProjects(ArchivePolicy policy, int limit) {
+        ProjectFilter filter = policy.getFilter();
+        String selectSql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE " + NOT_DELETED + " AND ("
+                + filter.getPredicate() + ") ORDER BY project_id LIMIT " + limit + " FOR UPDATE";
 
-                int rowsAffected = stmnt.executeUpdate();
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                List<Integer> ids = new ArrayList<>();
 
-                if (rowsAffected == 0) {
-                    rollbackTransaction(conn);
-                    System.out.println("Error: The project with ID " + projectId + " does not exist.");
-                    return false; // The project does not exist
+                try (PreparedStatement stmnt = conn.prepareStatement(selectSql)) {
+                    bindValues(stmnt, 1, filter.getParameters());
+
+                    try (ResultSet rs = stmnt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt(1));
+                        }
+                    }
                 }
-            } catch (SQLException e) {
-                rollbackTransaction(conn);
-                throw new DbException(e);
+
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+
+                boolean compressed = hasCompressedText(conn);
+                copyInChunks(conn, PROJECT_ARCHIVE_TABLE, PROJECT_TABLE,
+                        withCompressedColumn(ARCHIVED_PROJECT_COLUMNS, TextColumn.NOTES, compressed), ids);
+                copyInChunks(conn, STEP_ARCHIVE_TABLE, STEP_TABLE,
+                        withCompressedColumn(ARCHIVED_STEP_COLUMNS, TextColumn.STEP_TEXT, compressed), ids);
+                copyInChunks(conn, MATERIAL_ARCHIVE_TABLE, MATERIAL_TABLE, ARCHIVED_MATERIAL_COLUMNS, ids);
+                copyInChunks(conn, PROJECT_CATEGORY_ARCHIVE_TABLE, PROJECT_CATEGORY_TABLE, ARCHIVED_PROJECT_CATEGORY_COLUMNS, ids);
+
+                // Children first, so the cascades on the project rows have nothing left to do
+                for (PurgeTable table : PurgeTable.values()) {
+                    updateInChunks(conn, "DELETE FROM " + table.getTableName() + " WHERE project_id IN (%s)", ids);
+                }
+
+                updateInChunks(conn, "DELETE FROM " + PROJECT_TABLE + " WHERE project_id IN (%s)", ids);
+                return ids.size();
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private void copyInChunks(Connection conn, String toTable, String fromTable, String columns, List<Integer> ids)
+            throws SQLException {
+        updateInChunks(conn, "INSERT INTO " + toTable + " (" + columns + ") SELECT " + columns + " FROM " + fromTable
+                + " WHERE project_id IN (%s)", ids);
+    }
+
+    /*
+     * Like queryInChunks, for statements that return an update count.
+     */
+    private void updateInChunks(Connection conn, String sqlTemplate, List<Integer> ids) throws SQLException {
+        for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, ids.size()));
+
+            try (PreparedStatement stmnt = conn.prepareStatement(String.format(sqlTemplate, placeholders(chunk.size())))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmnt.setInt(i + 1, chunk.get(i));
+                }
+
+                stmnt.executeUpdate();
             }
+        }
+    }
+
+    /**
+     * Returns the IDs of soft-deleted projects that are waiting to be purged, oldest first.
+     */
+    public List<Integer> fetchProjectsToPurge() {
+        String sql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT "
+                + PURGE_PROJECTS_PER_PASS;
+
+        try {
+            return inTransaction(TransactionOptions.readOnly(), conn -> {
+                List<Integer> ids = new ArrayList<>();
+
+                try (PreparedStatement stmnt = conn.prepareStatement(sql);
+                     ResultSet rs = stmnt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+
+                return ids;
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
 
-            commitTransaction(conn);
-            System.out.println("Project with ID " + projectId + " deleted successfully.");
-            return true; // Project deleted successfully
+    /**
+     * Deletes at most {@code limit} child rows of a soft-deleted project in one short transaction.
+     *
+     * @return The number of rows deleted. Less than the limit means the table has no rows left for
+     *         the project.
+     */
+    public int purgeChildChunk(PurgeTable table, Integer projectId, int limit) {
+        String sql = "DELETE FROM " + table.getTableName() + " WHERE project_id = ? AND EXISTS (SELECT 1 FROM "
+                + PROJECT_TABLE + " p WHERE p.project_id = ? AND p.deleted_at IS NOT NULL) LIMIT " + limit;
+
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    stmnt.setInt(1, projectId);
+                    stmnt.setInt(2, projectId);
+                    return stmnt.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Removes the row of a soft-deleted project once its children are gone.
+     */
+    public boolean purgeProjectRow(Integer projectId) {
+        String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ? AND deleted_at IS NOT NULL";
+        // Keeps the delete visible to delta sync, at the change time the soft delete gave it
+        String tombstoneSql = "INSERT INTO " + PROJECT_TOMBSTONE_TABLE + " (project_id, deleted_at) SELECT project_id, updated_at"
+                + " FROM " + PROJECT_TABLE + " WHERE project_id = ? AND deleted_at IS NOT NULL";
+
+        try {
+            return inTransaction(TransactionOptions.readWrite(), conn -> {
+                try (PreparedStatement tombstone = conn.prepareStatement(tombstoneSql);
+                     PreparedStatement stmnt = conn.prepareStatement(sql)) {
+                    tombstone.setInt(1, projectId);
+                    tombstone.executeUpdate();
+                    stmnt.setInt(1, projectId);
+                    return stmnt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             throw new DbException(e);
         }
     }
+
+    /**
+     * The child tables of a project, in the order the purger empties them.
+     */
+    public enum PurgeTable {
+        STEP(STEP_TABLE), MATERIAL(MATERIAL_TABLE), PROJECT_CATEGORY(PROJECT_CATEGORY_TABLE);
+
+        private final String tableName;
+
+        PurgeTable(String tableName) {
+            this.tableName = tableName;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+    }
 }
@@ -1,177 +1,395 @@
 package projects.service;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
-import projects.dao.DbConnection;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import projects.dao.ChangeLogPoller;
+import projects.dao.Deadline;
+import projects.dao.FetchPlan;
+import projects.dao.JournalApplier;
+import projects.dao.JournalEntry;
 import projects.dao.ProjectDao;
-import projects.entity.Category;
-import projects.entity.Material;
+import projects.dao.ProjectDelta;
+import projects.dao.ProjectFilter;
+import projects.dao.ProjectPage;
+import projects.dao.ProjectQuery;
+import projects.dao.ArchivePolicy;
+import projects.dao.BulkResult;
+import projects.dao.BulkUpdate;
+import projects.dao.ProjectArchiver;
+import projects.dao.ProjectPurger;
+import projects.dao.ProjectSession;
+import projects.dao.ProjectSnapshot;
+import projects.dao.SyncWatermark;
+import projects.dao.WriteJournal;
 import projects.entity.Project;
-import projects.entity.Step;
 import projects.exception.DbException;
+import projects.exception.DeadlineExceededException;
 
 public class ProjectService {
+    // Time allowed for one interactive call, from waiting for a connection to the last statement
+    private static final Duration OPERATION_DEADLINE =
+            Duration.ofMillis(Long.getLong("projects.operationDeadlineMillis", 5_000));
+
+    // Time allowed for one bulk operation, all of its chunks together
+    private static final Duration BULK_DEADLINE =
+            Duration.ofMillis(Long.getLong("projects.bulkDeadlineMillis", 60_000));
+
     private ProjectDao projectDao = new ProjectDao();
 
+    // Appends hold the read lock, so stopping write-behind waits for them before closing the journal
+    private final ReadWriteLock writeBehindLock = new ReentrantReadWriteLock();
+    private WriteJournal journal;
+    private JournalApplier journalApplier;
+
+    /**
+     * Inserts the project and sets its ID. In write-behind mode the project is only journaled, and
+     * its ID stays null until the journal entry is applied; see {@link #fetchJournaledProjectId}.
+     */
     public Project addProject(Project project) {
-        return projectDao.insertProject(project);
+        addOrJournalProject(project);
+        return project;
+    }
+
+    /**
+     * Inserts the project and sets its ID, or in write-behind mode journals it.
+     *
+     * @return The journal entry, or null if the project was inserted.
+     */
+    public JournalEntry addOrJournalProject(Project project) {
+        JournalEntry entry = journalWrite(JournalEntry.Type.ADD, project);
+
+        if (entry == null) {
+            withDeadline("addProject", () -> projectDao.insertProject(project));
+        }
+
+        return entry;
+    }
+
+    public List<Project> addProjects(List<Project> projects) {
+        return withDeadline("addProjects", () -> projectDao.insertProjectBatch(projects));
+    }
+
+    public boolean[] modifyProjectBatch(List<Project> projects) {
+        return withDeadline("modifyProjectBatch", () -> projectDao.modifyProjectBatch(projects));
+    }
+
+    public boolean[] deleteProjectBatch(List<Integer> projectIds) {
+        return withDeadline("deleteProjectBatch", () -> projectDao.deleteProjectBatch(projectIds));
+    }
+
+    /**
+     * Bulk operations. The ID forms report an outcome for every ID; the filter forms report the
+     * projects they changed. Projects are changed in short chunked transactions, so a large
+     * operation never holds its locks for long and a failed chunk does not undo the others. Each
+     * operation runs under {@link #BULK_DEADLINE}; chunks that would run past it fail.
+     */
+    public BulkResult deleteProjects(Collection<Integer> projectIds) {
+        return withDeadline("deleteProjects", BULK_DEADLINE, () -> projectDao.deleteProjects(projectIds));
+    }
+
+    public BulkResult deleteProjectsWhere(ProjectFilter filter) {
+        return withDeadline("deleteProjectsWhere", BULK_DEADLINE, () -> projectDao.deleteProjectsWhere(filter));
+    }
+
+    public BulkResult updateProjects(Collection<Integer> projectIds, BulkUpdate update) {
+        return withDeadline("updateProjects", BULK_DEADLINE, () -> projectDao.updateProjects(projectIds, update));
+    }
+
+    public BulkResult updateProjectsWhere(ProjectFilter filter, BulkUpdate update) {
+        return withDeadline("updateProjectsWhere", BULK_DEADLINE, () -> projectDao.updateProjectsWhere(filter, update));
+    }
+
+    public BulkResult assignCategories(Collection<Integer> projectIds, Collection<Integer> categoryIds, boolean replace) {
+        return withDeadline("assignCategories", BULK_DEADLINE,
+                () -> projectDao.assignCategories(projectIds, categoryIds, replace));
+    }
+
+    public BulkResult assignCategoriesWhere(ProjectFilter filter, Collection<Integer> categoryIds, boolean replace) {
+        return withDeadline("assignCategoriesWhere", BULK_DEADLINE,
+                () -> projectDao.assignCategoriesWhere(filter, categoryIds, replace));
     }
 
     public List<Project> fetchAllProjects() {
-        return projectDao.fetchAllProjects();
+        return withDeadline("fetchAllProjects", projectDao::fetchAllProjects);
+    }
+
+    /**
+     * Streams the project rows to the handler. The deadline bounds the wait for a connection and the
+     * query; once rows flow, a slow reader is cut off by the socket timeout instead.
+     */
+    public void streamProjects(ProjectDao.RowHandler handler) {
+        withDeadline("streamProjects", () -> {
+            projectDao.streamProjects(handler);
+            return null;
+        });
+    }
+
+    public Integer fetchProjectVersion(Integer projectId) {
+        return withDeadline("fetchProjectVersion", () -> projectDao.fetchProjectVersion(projectId));
+    }
+
+    public boolean isProjectArchived(Integer projectId) {
+        return withDeadline("isProjectArchived", () -> projectDao.isProjectArchived(projectId));
+    }
+
+    public ProjectSnapshot fetchProjectSnapshot() {
+        return withDeadline("fetchProjectSnapshot", projectDao::fetchProjectSnapshot);
+    }
+
+    public ProjectSnapshot refreshProjectSnapshot(ProjectSnapshot snapshot, Collection<Integer> changedProjectIds) {
+        return withDeadline("refreshProjectSnapshot", () -> projectDao.refreshProjectSnapshot(snapshot, changedProjectIds));
     }
 
     public Project fetchProjectById(Integer projectId) {
-        String sql = "SELECT * FROM project WHERE project_id = ?";
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
-
-            try {
-                Project project = null;
-
-                try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-                    stmnt.setInt(1, projectId);
-
-                    try (ResultSet rs = stmnt.executeQuery()) {
-                        if (rs.next()) {
-                            project = extractProject(rs);
-                        }
-                    }
-                }
-
-                if (project != null) {
-                    project.setMaterials(fetchMaterials(conn, projectId));
-                    project.setSteps(fetchSteps(conn, projectId));
-                    project.setCategories(fetchCategories(conn, projectId));
-                }
-
-                commitTransaction(conn); // Commit the transaction if everything is successful
-                return project; // Return the project here
-
-            } catch (Exception e) {
-                rollbackTransaction(conn);
-                throw new DbException(e);
-            }
-        } catch (SQLException e) {
-            throw new DbException(e);
-        }
+        return fetchProjectById(projectId, FetchPlan.FULL);
     }
 
-    public void modifyProjectDetails(Project updatedProject) {
-        boolean success = projectDao.modifyProjectDetails(updatedProject);
+    /**
+     * Reads a project and the associations named in the plan, in the session bound to this thread if
+     * there is one. Otherwise associations left out of the plan cannot be read later, since the
+     * session used to load the project is closed on return; use
+     * {@link #fetchProjectById(ProjectSession, Integer, FetchPlan)} to load them on demand. A project
+     * already read in the session is returned as the same object, without reading its row again.
+     */
+    public Project fetchProjectById(Integer projectId, FetchPlan plan) {
+        ProjectSession current = ProjectSession.current();
 
-        if (!success) {
-            throw new DbException("The project does not exist.");
+        if (current != null) {
+            return fetchProjectById(current, projectId, plan);
         }
+
+        return withDeadline("fetchProjectById", () -> {
+            try (ProjectSession session = openSession()) {
+                return projectDao.fetchProjectById(session, projectId, plan);
+            }
+        });
     }
 
-    public void deleteProject(Integer projectId) {
-        boolean success = projectDao.deleteProject(projectId);
+    public Project fetchProjectById(ProjectSession session, Integer projectId, FetchPlan plan) {
+        return withDeadline("fetchProjectById", () -> projectDao.fetchProjectById(session, projectId, plan));
+    }
 
-        if (!success) {
-            throw new DbException("The project with ID " + projectId + " does not exist.");
-        }
+    public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+        return withDeadline("fetchProjectsByIds", () -> projectDao.fetchProjectsByIds(projectIds));
+    }
+
+    /**
+     * Returns one page of the projects that match the query. Pass the page's cursor to
+     * {@link ProjectQuery#after(String)} for the next page; for example
+     * {@code ProjectQuery.projects().where(ProjectFilter.difficultyAtLeast(4)).sortedBy(ProjectSort.UPDATED).descending()}.
+     */
+    public ProjectPage fetchProjects(ProjectQuery query) {
+        return withDeadline("fetchProjects", () -> projectDao.fetchProjects(query));
+    }
+
+    /**
+     * Returns a page of at most {@code limit} project changes after the watermark, for clients that
+     * keep a local copy: start from {@link SyncWatermark#INITIAL}, then pass each page's watermark to
+     * the next call.
+     *
+     * @throws IllegalArgumentException If the limit is not between 1 and {@link ProjectDelta#MAX_LIMIT}.
+     */
+    public ProjectDelta fetchProjectDelta(SyncWatermark since, int limit) {
+        return withDeadline("fetchProjectDelta", () -> projectDao.fetchProjectDelta(since, limit));
+    }
+
+    public void prewarm(int connections) {
+        projectDao.prewarm(connections);
+    }
+
+    /**
+     * Starts a poller that publishes every project write, from any node, to its subscribers.
+     * Entries older than the retention period are compacted away. Close the poller to stop it.
+     */
+    public ChangeLogPoller openChangeFeed(Duration pollInterval, Duration retention) {
+        return new ChangeLogPoller(projectDao, retention).start(pollInterval);
+    }
+
+    /**
+     * Starts removing soft-deleted projects in the background. Close the purger to stop it.
+     */
+    public ProjectPurger startPurger(Duration interval, int chunkSize, Duration pauseBetweenChunks) {
+        return new ProjectPurger(projectDao, chunkSize, pauseBetweenChunks).start(interval);
     }
 
-    private void startTransaction(Connection conn) throws SQLException {
-        conn.setAutoCommit(false);
+    /**
+     * Starts moving projects that match the policy to the archive tables in the background, in
+     * batches of {@code batchSize}. Close the archiver to stop it.
+     */
+    public ProjectArchiver startArchiver(ArchivePolicy policy, Duration interval, int batchSize) {
+        return new ProjectArchiver(projectDao, policy, batchSize).start(interval);
     }
 
-    private void commitTransaction(Connection conn) throws SQLException {
-        conn.commit();
-        conn.setAutoCommit(true);
+    /**
+     * Archives every project that matches the policy now.
+     *
+     * @return The number of projects archived.
+     */
+    public int archiveProjects(ArchivePolicy policy, int batchSize) {
+        return new ProjectArchiver(projectDao, policy, batchSize).archivePending();
     }
 
-    private void rollbackTransaction(Connection conn) {
+    /**
+     * Switches {@link #addProject} and {@link #modifyProjectDetails} to write-behind: each write is
+     * appended to a local journal in the directory and acknowledged once the journal is on disk, and
+     * a background applier writes the journal to MySQL in batches. Entries that an earlier run left
+     * unapplied are replayed first. Reads see a journaled write only after it is applied.
+     */
+    public void startWriteBehind(Path directory, Duration interval, int batchSize) throws IOException {
+        writeBehindLock.writeLock().lock();
+
         try {
-            conn.rollback();
-            conn.setAutoCommit(true);
-        } catch (SQLException e) {
-            throw new DbException(e);
+            if (journal != null) {
+                throw new IllegalStateException("Write-behind is already on");
+            }
+
+            journal = WriteJournal.open(directory);
+            journalApplier = new JournalApplier(journal, projectDao, batchSize).start(interval);
+        } finally {
+            writeBehindLock.writeLock().unlock();
         }
     }
 
-    private List<Material> fetchMaterials(Connection conn, Integer projectId) throws SQLException {
-        String sql = "SELECT * FROM material WHERE project_id = ?";
-        List<Material> materials = new ArrayList<>();
+    /**
+     * Waits for writes being journaled, stops the applier once its batch in progress is done and
+     * closes the journal. Entries not applied yet stay in the journal for the next
+     * {@link #startWriteBehind}.
+     */
+    public void stopWriteBehind() throws IOException {
+        writeBehindLock.writeLock().lock();
+
+        try {
+            if (journal != null) {
+                WriteJournal closing = journal;
+                journal = null;
+                journalApplier.close();
+                journalApplier = null;
+                closing.close();
+            }
+        } finally {
+            writeBehindLock.writeLock().unlock();
+        }
+    }
 
-        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-            stmnt.setInt(1, projectId);
+    /**
+     * Journals a write in write-behind mode and returns its entry, whose idempotency key looks up
+     * the write's outcome once it has been applied.
+     *
+     * @return The entry, or null if write-behind is off and nothing was journaled.
+     */
+    public JournalEntry journalWrite(JournalEntry.Type type, Project project) {
+        writeBehindLock.readLock().lock();
 
-            try (ResultSet rs = stmnt.executeQuery()) {
-                while (rs.next()) {
-                    Material material = new Material();
-                    material.setMaterialId(rs.getInt("material_id"));
-                    material.setProjectId(rs.getInt("project_id"));
-                    material.setName(rs.getString("material_name"));
-          
-                    materials.add(material);
-                }
+        try {
+            if (journal == null) {
+                return null;
             }
+
+            JournalEntry entry = journal.append(type, project);
+            journalApplier.wake();
+            return entry;
+        } catch (IOException e) {
+            throw new DbException("Unable to write the journal.", e);
+        } finally {
+            writeBehindLock.readLock().unlock();
         }
+    }
 
-        return materials;
+    public JournalEntry.Outcome fetchJournalOutcome(String idempotencyKey) {
+        return withDeadline("fetchJournalOutcome", () -> projectDao.fetchJournalOutcome(idempotencyKey));
     }
 
-    private List<Step> fetchSteps(Connection conn, Integer projectId) throws SQLException {
-        String sql = "SELECT * FROM step WHERE project_id = ?";
-        List<Step> steps = new ArrayList<>();
+    public Integer fetchJournaledProjectId(String idempotencyKey) {
+        return withDeadline("fetchJournaledProjectId", () -> projectDao.fetchJournaledProjectId(idempotencyKey));
+    }
 
-        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-            stmnt.setInt(1, projectId);
+    public ProjectSession openSession() {
+        return ProjectSession.open();
+    }
+
+    /**
+     * Updates the project if it still has the row version it was read with.
+     *
+     * @return False if the project exists but has been changed since.
+     */
+    public boolean modifyProjectDetailsIfUnchanged(Project updatedProject) {
+        return withDeadline("modifyProjectDetailsIfUnchanged", () -> {
+            if (projectDao.modifyProjectDetails(updatedProject)) {
+                return true;
+            }
 
-            try (ResultSet rs = stmnt.executeQuery()) {
-                while (rs.next()) {
-                    Step step = new Step();
-                    step.setStepId(rs.getInt("step_id"));
-                    step.setProjectId(rs.getInt("project_id"));
-                    step.setStepText(rs.getString("step_text"));
-                    step.setStepOrder(rs.getInt("step_order"));
-                   
-                    steps.add(step);
-                }
+            if (projectDao.fetchProjectVersion(updatedProject.getProjectId()) == null) {
+                throw new DbException("The project does not exist.");
             }
+
+            if (projectDao.isProjectArchived(updatedProject.getProjectId())) {
+                throw new DbException("The project is archived and read-only.");
+            }
+
+            return false;
+        });
+    }
+
+    /**
+     * Updates the project's scalar fields. In write-behind mode the update is only journaled, so a
+     * missing project is not reported here but recorded as a {@link JournalEntry.Outcome#CONFLICT}.
+     */
+    public void modifyProjectDetails(Project updatedProject) {
+        if (journalWrite(JournalEntry.Type.MODIFY, updatedProject) != null) {
+            return;
         }
 
-        return steps;
+        boolean success = withDeadline("modifyProjectDetails", () -> projectDao.modifyProjectDetails(updatedProject));
+
+        if (!success) {
+            throw new DbException("The project does not exist.");
+        }
     }
 
-    private List<Category> fetchCategories(Connection conn, Integer projectId) throws SQLException {
-        String sql = "SELECT c.* FROM category c " +
-                     "JOIN project_category pc ON c.category_id = pc.category_id " +
-                     "WHERE pc.project_id = ?";
-        List<Category> categories = new ArrayList<>();
+    public void deleteProject(Integer projectId) {
+        boolean success = withDeadline("deleteProject", () -> projectDao.deleteProject(projectId));
 
-        try (PreparedStatement stmnt = conn.prepareStatement(sql)) {
-            stmnt.setInt(1, projectId);
+        if (!success) {
+            throw new DbException("The project with ID " + projectId + " does not exist.");
+        }
+    }
 
-            try (ResultSet rs = stmnt.executeQuery()) {
-                while (rs.next()) {
-                    Category category = new Category();
-                    category.setCategoryId(rs.getInt("category_id"));
-                    category.setCategoryName(rs.getString("category_name"));
-              
-                    categories.add(category);
-                }
+    /**
+     * Runs the DAO work under a deadline of {@link #OPERATION_DEADLINE}, or of the caller's own
+     * deadline if that is sooner. A timeout is counted against the operation and surfaces as a
+     * {@link DeadlineExceededException}.
+     */
+    private <T> T withDeadline(String operation, Supplier<T> work) {
+        return withDeadline(operation, OPERATION_DEADLINE, work);
+    }
+
+    // The deadline is bound to the thread for the DAO to find, so the resource is never referenced
+    @SuppressWarnings("try")
+    private <T> T withDeadline(String operation, Duration timeout, Supplier<T> work) {
+        try (Deadline ignored = Deadline.start(operation, timeout)) {
+            return work.get();
+        } catch (DbException e) {
+            if (!Deadline.isTimeout(e)) {
+                throw e;
             }
-        }
 
-        return categories;
+            Deadline.recordTimeout(operation);
+            throw e instanceof DeadlineExceededException ? e
+                    : new DeadlineExceededException(operation + " ran past its deadline.", e);
+        }
     }
 
-    private Project extractProject(ResultSet rs) throws SQLException {
-        Project project = new Project();
-        project.setProjectId(rs.getInt("project_id"));
-        project.setProjectName(rs.getString("project_name"));
-        project.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
-        project.setActualHours(rs.getBigDecimal("actual_hours"));
-        project.setDifficulty(rs.getInt("difficulty"));
-        project.setNotes(rs.getString("notes"));
-        // Add any additional properties you need to set
-        return project;
+    /**
+     * Returns the number of calls that ran past their deadline, by operation.
+     */
+    public Map<String, Long> fetchTimeoutCounts() {
+        return Deadline.getTimeoutCounts();
     }
 }
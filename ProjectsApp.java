@@ -1,10 +1,23 @@
 package projects;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Supplier;
 
+import projects.dao.ArchivePolicy;
+import projects.dao.FetchPlan;
+import projects.dao.ProjectSession;
 import projects.entity.Material;
 import projects.entity.Project;
 import projects.entity.Step;
@@ -17,18 +30,127 @@ public class ProjectsApp {
     private Scanner scanner = new Scanner(System.in);
     private ProjectService projectService = new ProjectService();
     private Project curProject;
+    private boolean startupReport;
+    private boolean menuRendered;
+
+    // Connections opened ahead of the first menu action when started with --fast-start
+    private static final int PREWARM_CONNECTIONS = 2;
+    private static final String JDBC_DRIVER_CLASS = "com.mysql.cj.jdbc.Driver";
+
+    private static final Duration PURGE_INTERVAL = Duration.ofSeconds(30);
+    private static final int PURGE_CHUNK_SIZE = 500;
+    private static final Duration PURGE_PAUSE = Duration.ofMillis(50);
+
+    // With --archive, finished projects outside the newest ARCHIVE_KEEP_NEWEST are moved to the
+    // archive tables. Archived projects can still be read by ID but are read-only, and they no longer
+    // appear in the project list or the overrun analytics, so archiving is off by default.
+    private static final Duration ARCHIVE_INTERVAL = Duration.ofMinutes(10);
+    private static final int ARCHIVE_BATCH_SIZE = 200;
+    private static final int ARCHIVE_KEEP_NEWEST = 1000;
 
     public static void main(String[] args) {
+        StartupTimer.recordJvmStartup("JVM start to main");
+        List<String> options = List.of(args);
+
+        if (options.contains("--cds-training")) {
+            trainClassDataSharing();
+            return;
+        }
+
+        int batch = options.indexOf("--batch");
+
+        if (batch >= 0) {
+            String script = batch + 1 < options.size() ? options.get(batch + 1) : "-";
+            System.exit(runBatch(script) == 0 ? 0 : 1);
+        }
+
+        long appInit = StartupTimer.start();
         ProjectsApp app = new ProjectsApp();
+        app.startupReport = options.contains("--startup-report");
+        StartupTimer.record("application init", appInit);
+
+        if (options.contains("--fast-start")) {
+            app.prewarmInBackground();
+        }
+
+        // Deleted projects are only marked; this removes their rows in the background
+        app.projectService.startPurger(PURGE_INTERVAL, PURGE_CHUNK_SIZE, PURGE_PAUSE);
+
+        if (options.contains("--archive")) {
+            app.projectService.startArchiver(ArchivePolicy.completed().and(ArchivePolicy.olderThanNewest(ARCHIVE_KEEP_NEWEST)),
+                    ARCHIVE_INTERVAL, ARCHIVE_BATCH_SIZE);
+        }
+
         app.processUserSelections();
     }
 
+    /*
+     * Runs a command script (see BatchRunner) from a file, or from standard input if the name is "-".
+     * Returns the number of failed commands.
+     */
+    private static int runBatch(String script) {
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            return new BatchRunner(new ProjectService(), in, out).run();
+        } catch (IOException e) {
+            System.err.println("Unable to run batch script " + script + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*
+     * Loads the driver, opens pooled connections and prepares the hot statements on a background
+     * thread while the menu is rendered and the user reads it.
+     */
+    private void prewarmInBackground() {
+        Thread prewarm = new Thread(() -> {
+            try {
+                long driverLoad = StartupTimer.start();
+                Class.forName(JDBC_DRIVER_CLASS);
+                StartupTimer.record("load JDBC driver", driverLoad);
+
+                long connect = StartupTimer.start();
+                projectService.prewarm(PREWARM_CONNECTIONS);
+                StartupTimer.record("prewarm connections", connect);
+            } catch (ClassNotFoundException | DbException e) {
+                // Not fatal: the first menu action connects as usual
+                System.err.println("Prewarm failed: " + e.getMessage());
+            }
+        }, "prewarm");
+
+        prewarm.setDaemon(true);
+        prewarm.start();
+    }
+
+    /*
+     * Run by the appcds build profile with -XX:ArchiveClassesAtExit. Loads the application and
+     * driver classes that a normal session uses so they end up in the archive, then exits. The
+     * database does not have to be reachable.
+     */
+    private static void trainClassDataSharing() {
+        try {
+            Class.forName(JDBC_DRIVER_CLASS);
+            new ProjectsApp().projectService.prewarm(1);
+        } catch (ClassNotFoundException | DbException e) {
+            System.err.println("Class data sharing training ran without a database: " + e.getMessage());
+        }
+
+        new Project().toString();
+        new Material().toString();
+        new Step().toString();
+        StartupTimer.report(System.out);
+    }
+
     public void processUserSelections() {
         boolean done = false;
+        boolean firstOperation = true;
 
         while (!done) {
             try {
                 int selection = getUserSelection();
+                long operationStart = StartupTimer.start();
 
                 switch (selection) {
                     case 1:
@@ -52,12 +174,33 @@ public class ProjectsApp {
                     default:
                         System.out.println("\n" + selection + " is not a valid selection. Try again.");
                 }
+
+                if (firstOperation) {
+                    firstOperation = false;
+                    StartupTimer.record("first menu action", operationStart);
+
+                    if (startupReport) {
+                        StartupTimer.report(System.out);
+                    }
+                }
             } catch (Exception e) {
                 System.out.println(e.toString());
             }
         }
     }
 
+    /*
+     * Runs service calls that belong together in one session: one connection, and each project
+     * materialized once. The session is bound only around the calls, never while the user types, so
+     * it holds no connection or admission permit between prompts.
+     */
+    @SuppressWarnings("try")
+    private <T> T inSession(Supplier<T> calls) {
+        try (ProjectSession ignored = ProjectSession.begin()) {
+            return calls.get();
+        }
+    }
+
     private int getUserSelection() {
         printOperations();
         Integer input = getIntInput("Enter a menu selection");
@@ -70,6 +213,7 @@ public class ProjectsApp {
     }
 
     private void printOperations() {
+        long render = StartupTimer.start();
         System.out.println("These are the available selections. Press enter to quit.");
         operations.forEach(operation -> System.out.println(operation));
 
@@ -78,6 +222,11 @@ public class ProjectsApp {
         } else {
             System.out.println("\nYou are working with project: " + curProject);
         }
+
+        if (!menuRendered) {
+            menuRendered = true;
+            StartupTimer.record("render first menu", render);
+        }
     }
 
     private Integer getIntInput(String prompt) {
@@ -187,14 +336,18 @@ public class ProjectsApp {
     private void selectProject() {
         listProjects();
 
-        Integer projectId = null;
         boolean validInput = false;
 
         while (!validInput) {
             try {
-                projectId = getIntInput("Enter the ID of the project to select");
+                Integer projectId = getIntInput("Enter the ID of the project to select");
+
+                // In one session the full read reuses the row the existence check materialized
+                Project selected = inSession(() -> projectService.fetchProjectById(projectId, FetchPlan.SCALARS) == null
+                        ? null : projectService.fetchProjectById(projectId));
 
-                if (projectService.fetchProjectById(projectId) != null) {
+                if (selected != null) {
+                    curProject = selected;
                     validInput = true;
                 } else {
                     System.out.println("Project with ID " + projectId + " does not exist. Try again.");
@@ -204,7 +357,6 @@ public class ProjectsApp {
             }
         }
 
-        curProject = projectService.fetchProjectById(projectId);
         System.out.println("Project selected successfully!");
     }
 
@@ -235,8 +387,16 @@ public class ProjectsApp {
 
         // Update project details using service
         try {
-            projectService.modifyProjectDetails(updatedProject);
-            curProject = projectService.fetchProjectById(updatedProject.getProjectId());
+            Project refreshedProject = inSession(() -> {
+                projectService.modifyProjectDetails(updatedProject);
+                return projectService.fetchProjectById(updatedProject.getProjectId(), FetchPlan.SCALARS);
+            });
+
+            // Only the scalar fields changed, so keep the children that are already loaded
+            refreshedProject.setMaterials(curProject.getMaterials());
+            refreshedProject.setSteps(curProject.getSteps());
+            refreshedProject.setCategories(curProject.getCategories());
+            curProject = refreshedProject;
             System.out.println("Project details updated successfully!");
         } catch (DbException e) {
             System.out.println("Error: " + e.getMessage());
@@ -1,4 +1,12 @@
 -- DROP TABLE statements
+DROP TABLE IF EXISTS journal_applied;
+DROP TABLE IF EXISTS text_dictionary;
+DROP TABLE IF EXISTS project_tombstone;
+DROP TABLE IF EXISTS project_category_archive;
+DROP TABLE IF EXISTS step_archive;
+DROP TABLE IF EXISTS material_archive;
+DROP TABLE IF EXISTS project_archive;
+DROP TABLE IF EXISTS project_change_log;
 DROP TABLE IF EXISTS project_category;
 DROP TABLE IF EXISTS step;
 DROP TABLE IF EXISTS material;
@@ -15,7 +23,8 @@ CREATE TABLE category (
 CREATE TABLE step (
     step_id INT AUTO_INCREMENT,
     project_id INT NOT NULL,
-    step_text TEXT NOT NULL,
+    step_text TEXT NULL,
+    step_text_z BLOB NULL,
     step_order INT NOT NULL,
     PRIMARY KEY (step_id),
     FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE
@@ -39,6 +48,8 @@ CREATE TABLE project_category (
     FOREIGN KEY (category_id) REFERENCES category (category_id) ON DELETE CASCADE
 );
 
+-- Each (deleted_at, column, project_id) index serves one order of the live project queries, so a
+-- page is read off the index in order. The name index also finds soft-deleted rows for the purger.
 CREATE TABLE project (
     project_id INT AUTO_INCREMENT,
     project_name VARCHAR(128) NOT NULL,
@@ -46,5 +57,100 @@ CREATE TABLE project (
     actual_hours DECIMAL(7,2),
     difficulty INT,
     notes TEXT,
-    PRIMARY KEY (project_id)
-);
\ No newline at end of file
+    notes_z BLOB NULL,
+    row_version INT NOT NULL DEFAULT 0,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    deleted_at DATETIME NULL,
+    PRIMARY KEY (project_id),
+    INDEX idx_project_live_name (deleted_at, project_name, project_id),
+    INDEX idx_project_live_difficulty (deleted_at, difficulty, project_id),
+    INDEX idx_project_live_estimated (deleted_at, estimated_hours, project_id),
+    INDEX idx_project_updated_at (updated_at, project_id)
+);
+
+-- Every write to a project appends a row here in the same transaction. Each node tails the log by
+-- change_seq to invalidate its caches; rows older than the retention period are compacted away.
+CREATE TABLE project_change_log (
+    change_seq BIGINT AUTO_INCREMENT,
+    project_id INT NOT NULL,
+    change_type CHAR(1) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (change_seq),
+    INDEX idx_change_log_changed_at (changed_at)
+);
+
+-- Archived projects and their children, moved here in batches by the archiver so that the hot tables
+-- only hold the working set. Reads by project ID fall back to these tables on a hot-table miss.
+CREATE TABLE project_archive (
+    project_id INT NOT NULL,
+    project_name VARCHAR(128) NOT NULL,
+    estimated_hours DECIMAL(7,2),
+    actual_hours DECIMAL(7,2),
+    difficulty INT,
+    notes TEXT,
+    notes_z BLOB NULL,
+    row_version INT NOT NULL DEFAULT 0,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (project_id),
+    INDEX idx_project_archive_updated_at (updated_at, project_id)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE step_archive (
+    step_id INT NOT NULL,
+    project_id INT NOT NULL,
+    step_text TEXT NULL,
+    step_text_z BLOB NULL,
+    step_order INT NOT NULL,
+    PRIMARY KEY (step_id),
+    INDEX idx_step_archive_project (project_id)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE material_archive (
+    material_id INT NOT NULL,
+    project_id INT NOT NULL,
+    material_name VARCHAR(128) NOT NULL,
+    num_required INT,
+    cost DECIMAL(7,2),
+    PRIMARY KEY (material_id),
+    INDEX idx_material_archive_project (project_id)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE project_category_archive (
+    project_id INT NOT NULL,
+    category_id INT NOT NULL,
+    PRIMARY KEY (project_id, category_id)
+);
+
+-- Preset dictionaries for the compressed text columns (notes_z, step_text_z). A compressed value
+-- names its dictionary by Adler-32 checksum; new values use the newest dictionary.
+CREATE TABLE text_dictionary (
+    dictionary_id INT AUTO_INCREMENT,
+    checksum BIGINT NOT NULL,
+    dictionary BLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (dictionary_id),
+    INDEX idx_text_dictionary_checksum (checksum)
+);
+
+-- Projects purged after a soft delete. Delta sync reports them as deleted at the time of the soft
+-- delete, which is the change time they had before the purge.
+CREATE TABLE project_tombstone (
+    project_id INT NOT NULL,
+    deleted_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (project_id),
+    INDEX idx_project_tombstone_deleted_at (deleted_at, project_id)
+);
+
+-- Idempotency keys of the write journal entries applied to this database. A key commits with its
+-- write, so an entry replayed after a crash is recognised and skipped.
+CREATE TABLE journal_applied (
+    idempotency_key VARCHAR(64) NOT NULL,
+    project_id INT NULL,
+    outcome VARCHAR(16) NOT NULL,
+    detail VARCHAR(255) NULL,
+    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (idempotency_key)
+);
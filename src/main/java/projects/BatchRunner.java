@@ -0,0 +1,301 @@
+package projects;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import projects.dao.ProjectSession;
+import projects.entity.Project;
+import projects.exception.DbException;
+import projects.service.ProjectService;
+
+/**
+ * Runs ProjectsApp commands read from a script instead of the interactive menu. One command per
+ * line, fields separated by '|'; blank lines and lines starting with '#' are ignored:
+ *
+ * <pre>
+ * add|name|estimated hours|actual hours|difficulty|notes
+ * update|id|name|estimated hours|actual hours|difficulty|notes
+ * delete|id
+ * get|id
+ * list
+ * commit
+ * </pre>
+ *
+ * Consecutive writes of the same kind are queued and sent as one JDBC batch in one transaction, up
+ * to {@link #MAX_BATCH} commands. The queue is flushed when the kind of command changes, before
+ * every read (so reads see earlier writes), on "commit" and at the end of the script. If a batch
+ * fails, its transaction is rolled back and every command in it is reported as failed. Each batch
+ * and read runs in a session bound only while it runs, so no connection or admission permit is held
+ * while the next line is read. Results are written through a buffered writer.
+ */
+public class BatchRunner {
+    private static final int MAX_BATCH = 500;
+
+    private final ProjectService projectService;
+    private final BufferedReader in;
+    private final BufferedWriter out;
+
+    private final List<Command> pending = new ArrayList<>();
+    private int failures;
+
+    public BatchRunner(ProjectService projectService, BufferedReader in, BufferedWriter out) {
+        this.projectService = projectService;
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Runs the script to the end.
+     *
+     * @return The number of commands that failed.
+     */
+    public int run() throws IOException {
+        try {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                try {
+                    execute(new Command(lineNumber, line.split("\\|", -1)));
+                } catch (IllegalArgumentException e) {
+                    error(lineNumber, e.getMessage());
+                }
+            }
+
+            flush();
+        } finally {
+            out.flush();
+        }
+
+        return failures;
+    }
+
+    private void execute(Command command) throws IOException {
+        switch (command.verb) {
+            case "add":
+            case "update":
+            case "delete":
+                command.parse();
+
+                if (!pending.isEmpty() && !pending.get(0).verb.equals(command.verb)) {
+                    flush();
+                }
+
+                pending.add(command);
+
+                if (pending.size() >= MAX_BATCH) {
+                    flush();
+                }
+                break;
+
+            case "get":
+                flush();
+                command.expectFields(2);
+                inSession(() -> get(command));
+                break;
+
+            case "list":
+                flush();
+                command.expectFields(1);
+                inSession(this::list);
+                break;
+
+            case "commit":
+                flush();
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command.verb);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Command> batch = new ArrayList<>(pending);
+        pending.clear();
+        inSession(() -> send(batch));
+    }
+
+    private void send(List<Command> batch) throws IOException {
+        try {
+            switch (batch.get(0).verb) {
+                case "add":
+                    List<Project> projects = new ArrayList<>();
+                    batch.forEach(command -> projects.add(command.project));
+                    projectService.addProjects(projects);
+
+                    for (Command command : batch) {
+                        write("OK add " + command.project.getProjectId());
+                    }
+                    break;
+
+                case "update":
+                    List<Project> updates = new ArrayList<>();
+                    batch.forEach(command -> updates.add(command.project));
+                    report(batch, projectService.modifyProjectBatch(updates));
+                    break;
+
+                case "delete":
+                    List<Integer> ids = new ArrayList<>();
+                    batch.forEach(command -> ids.add(command.projectId));
+                    report(batch, projectService.deleteProjectBatch(ids));
+                    break;
+
+                default:
+                    throw new IllegalStateException("Not a write: " + batch.get(0).verb);
+            }
+        } catch (DbException e) {
+            for (Command command : batch) {
+                error(command.lineNumber, "batch rolled back: " + e.getMessage());
+            }
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void inSession(DatabaseStep step) throws IOException {
+        try (ProjectSession ignored = ProjectSession.begin()) {
+            step.run();
+        }
+    }
+
+    private void report(List<Command> batch, boolean[] changed) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            Command command = batch.get(i);
+
+            if (changed[i]) {
+                write("OK " + command.verb + " " + command.projectId);
+            } else {
+                error(command.lineNumber, "project " + command.projectId + " does not exist");
+            }
+        }
+    }
+
+    private void get(Command command) throws IOException {
+        Integer projectId = command.intField(1);
+
+        try {
+            Project project = projectService.fetchProjectById(projectId);
+
+            if (project == null) {
+                error(command.lineNumber, "project " + projectId + " does not exist");
+            } else {
+                write("OK get " + project);
+            }
+        } catch (DbException e) {
+            error(command.lineNumber, e.getMessage());
+        }
+    }
+
+    private void list() throws IOException {
+        write("OK list");
+
+        try {
+            projectService.streamProjects(rs -> {
+                try {
+                    write(rs.getInt("project_id") + "\t" + rs.getString("project_name"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text);
+        out.newLine();
+    }
+
+    private void error(int lineNumber, String message) throws IOException {
+        failures++;
+        write("ERROR line " + lineNumber + ": " + message);
+    }
+
+    @FunctionalInterface
+    private interface DatabaseStep {
+        void run() throws IOException;
+    }
+
+    private static class Command {
+        private final int lineNumber;
+        private final String verb;
+        private final String[] fields;
+        private Project project;
+        private Integer projectId;
+
+        private Command(int lineNumber, String[] fields) {
+            this.lineNumber = lineNumber;
+            this.verb = fields[0].strip().toLowerCase();
+            this.fields = fields;
+        }
+
+        private void parse() {
+            switch (verb) {
+                case "add":
+                    expectFields(6);
+                    project = projectFrom(1);
+                    break;
+                case "update":
+                    expectFields(7);
+                    projectId = intField(1);
+                    project = projectFrom(2);
+                    project.setProjectId(projectId);
+                    break;
+                case "delete":
+                    expectFields(2);
+                    projectId = intField(1);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not a write: " + verb);
+            }
+        }
+
+        private Project projectFrom(int first) {
+            Project parsed = new Project();
+            parsed.setProjectName(fields[first].strip());
+            parsed.setEstimatedHours(decimalField(first + 1));
+            parsed.setActualHours(decimalField(first + 2));
+            parsed.setDifficulty(intField(first + 3));
+            parsed.setNotes(fields[first + 4].isBlank() ? null : fields[first + 4].strip());
+            return parsed;
+        }
+
+        private void expectFields(int count) {
+            if (fields.length != count) {
+                throw new IllegalArgumentException(verb + " takes " + (count - 1) + " fields but got " + (fields.length - 1));
+            }
+        }
+
+        private Integer intField(int index) {
+            try {
+                return Integer.valueOf(fields[index].strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(fields[index] + " is not a valid number");
+            }
+        }
+
+        private BigDecimal decimalField(int index) {
+            try {
+                return new BigDecimal(fields[index].strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(fields[index] + " is not a valid number");
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package projects;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each startup phase takes so that cold-start regressions can be spotted. Phases
+ * may overlap (connection prewarming runs in the background while the menu renders), so each phase
+ * is reported with its own duration and with the time it finished, measured from JVM start.
+ */
+public class StartupTimer {
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final long CLASS_INIT_NANOS = System.nanoTime();
+    private static final long CLASS_INIT_MILLIS = System.currentTimeMillis();
+
+    private static final List<Phase> phases = new ArrayList<>();
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Returns a start time to pass to {@link #record(String, long)}.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void record(String name, long startNanos) {
+        long endNanos = System.nanoTime();
+
+        synchronized (phases) {
+            phases.add(new Phase(name, endNanos - startNanos, sinceJvmStart(endNanos)));
+        }
+    }
+
+    /**
+     * Records the time from JVM start until now, which covers JVM boot and loading the main class.
+     */
+    public static void recordJvmStartup(String name) {
+        long nowNanos = System.nanoTime();
+        long elapsed = TimeUnit.MILLISECONDS.toNanos(sinceJvmStart(nowNanos));
+
+        synchronized (phases) {
+            phases.add(new Phase(name, elapsed, sinceJvmStart(nowNanos)));
+        }
+    }
+
+    private static long sinceJvmStart(long nanos) {
+        long wallMillis = CLASS_INIT_MILLIS + TimeUnit.NANOSECONDS.toMillis(nanos - CLASS_INIT_NANOS);
+        return wallMillis - JVM_START_MILLIS;
+    }
+
+    public static void report(PrintStream out) {
+        StringBuilder report = new StringBuilder("\nStartup timing (ms):\n");
+        report.append(String.format("  %-28s %10s %12s%n", "phase", "duration", "done at"));
+
+        synchronized (phases) {
+            for (Phase phase : phases) {
+                report.append(String.format("  %-28s %10.1f %12d%n", phase.name,
+                        phase.durationNanos / 1_000_000.0, phase.doneAtMillis));
+            }
+        }
+
+        out.print(report);
+    }
+
+    private static class Phase {
+        private final String name;
+        private final long durationNanos;
+        private final long doneAtMillis;
+
+        private Phase(String name, long durationNanos, long doneAtMillis) {
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.doneAtMillis = doneAtMillis;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package projects.bench;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+import projects.dao.DbConnection;
+import projects.exception.DbException;
+
+/**
+ * Fills the project tables with synthetic data that is reproducible from a seed. Project N is always
+ * generated from the same random stream, whatever scale it is generated at, so growing a dataset
+ * from 10,000 to 100,000 projects gives the same rows as generating 100,000 at once.
+ *
+ * Step counts follow a Pareto distribution, so most projects have a few steps and a few have
+ * hundreds; a configurable share of projects carry long notes. Projects get IDs 1..N, so
+ * {@link #reset()} must run before the first {@link #growTo(int)} on a database with other data.
+ */
+public class DatasetGenerator {
+    private static final int PROJECTS_PER_TRANSACTION = 1000;
+
+    private static final String[] WORDS = { "sand", "glue", "measure", "cut", "drill", "paint", "sanding", "board",
+            "clamp", "screw", "hinge", "trim", "level", "frame", "panel", "stain", "finish", "mount", "brace", "seal",
+            "wire", "tile", "grout", "joint", "primer", "shelf", "door", "cabinet", "fence", "deck" };
+
+    private final Profile profile;
+
+    public DatasetGenerator(Profile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Removes every project, step, material, category and category link, including archived ones,
+     * and creates the categories.
+     */
+    public void reset() {
+        try (Connection conn = DbConnection.getConnection(); Statement stmnt = conn.createStatement()) {
+            stmnt.execute("SET FOREIGN_KEY_CHECKS = 0");
+
+            try {
+                for (String table : new String[] { "project_category", "step", "material", "category", "project",
+                        "project_change_log", "project_category_archive", "step_archive", "material_archive",
+                        "project_archive", "project_tombstone" }) {
+                    stmnt.execute("TRUNCATE TABLE " + table);
+                }
+            } finally {
+                stmnt.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO category (category_id, category_name) VALUES (?, ?)")) {
+                for (int categoryId = 1; categoryId <= profile.categoryCount; categoryId++) {
+                    insert.setInt(1, categoryId);
+                    insert.setString(2, "Category " + categoryId);
+                    insert.addBatch();
+                }
+
+                insert.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Adds projects until there are {@code projectCount} of them.
+     *
+     * @return The number of projects added.
+     */
+    public int growTo(int projectCount) {
+        try (Connection conn = DbConnection.getConnection()) {
+            int existing = countProjects(conn);
+            conn.setAutoCommit(false);
+
+            try {
+                for (int from = existing; from < projectCount; from += PROJECTS_PER_TRANSACTION) {
+                    insertProjects(conn, from, Math.min(from + PROJECTS_PER_TRANSACTION, projectCount));
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            return Math.max(0, projectCount - existing);
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private int countProjects(Connection conn) throws SQLException {
+        try (Statement stmnt = conn.createStatement(); ResultSet rs = stmnt.executeQuery("SELECT COUNT(*) FROM project")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void insertProjects(Connection conn, int fromIndex, int toIndex) throws SQLException {
+        try (PreparedStatement project = conn.prepareStatement("INSERT INTO project "
+                + "(project_id, project_name, estimated_hours, actual_hours, difficulty, notes) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement step = conn.prepareStatement(
+                     "INSERT INTO step (project_id, step_text, step_order) VALUES (?, ?, ?)");
+             PreparedStatement material = conn.prepareStatement(
+                     "INSERT INTO material (project_id, material_name, num_required, cost) VALUES (?, ?, ?, ?)");
+             PreparedStatement link = conn.prepareStatement(
+                     "INSERT INTO project_category (project_id, category_id) VALUES (?, ?)")) {
+            for (int index = fromIndex; index < toIndex; index++) {
+                SplittableRandom random = randomFor(index);
+                int projectId = index + 1;
+                int estimated = 1 + random.nextInt(200);
+
+                project.setInt(1, projectId);
+                project.setString(2, sentence(random, 2, 5));
+                project.setInt(3, estimated);
+                project.setInt(4, random.nextInt(estimated * 2));
+                project.setInt(5, 1 + random.nextInt(5));
+                project.setString(6, random.nextDouble() < profile.longNotesShare
+                        ? text(random, profile.longNotesLength) : sentence(random, 5, 30));
+                project.addBatch();
+
+                int steps = stepCount(random);
+                for (int order = 1; order <= steps; order++) {
+                    step.setInt(1, projectId);
+                    step.setString(2, sentence(random, 4, 40));
+                    step.setInt(3, order);
+                    step.addBatch();
+                }
+
+                int materials = random.nextInt(2 * profile.meanMaterials + 1);
+                for (int i = 0; i < materials; i++) {
+                    material.setInt(1, projectId);
+                    material.setString(2, sentence(random, 1, 3));
+                    material.setInt(3, 1 + random.nextInt(20));
+                    material.setBigDecimal(4, BigDecimal.valueOf(random.nextInt(100_000), 2));
+                    material.addBatch();
+                }
+
+                // Low category IDs are picked far more often, like real tag use
+                int first = skewedCategory(random);
+                link.setInt(1, projectId);
+                link.setInt(2, first);
+                link.addBatch();
+
+                int second = skewedCategory(random);
+                if (second != first && random.nextBoolean()) {
+                    link.setInt(1, projectId);
+                    link.setInt(2, second);
+                    link.addBatch();
+                }
+            }
+
+            // Parents first, so the children's foreign keys are satisfied
+            project.executeBatch();
+            step.executeBatch();
+            material.executeBatch();
+            link.executeBatch();
+        }
+    }
+
+    private SplittableRandom randomFor(int index) {
+        // Mixing the index into the seed gives each project its own independent stream
+        return new SplittableRandom(profile.seed * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private int stepCount(SplittableRandom random) {
+        double pareto = profile.minSteps / Math.pow(1.0 - random.nextDouble(), 1.0 / profile.stepSkew);
+        return (int)Math.min(pareto, profile.maxSteps);
+    }
+
+    private int skewedCategory(SplittableRandom random) {
+        double u = random.nextDouble();
+        return 1 + (int)(profile.categoryCount * u * u * u);
+    }
+
+    private static String sentence(SplittableRandom random, int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        return text.toString();
+    }
+
+    private static String text(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+
+        while (text.length() < length) {
+            text.append(sentence(random, 5, 20)).append(". ");
+        }
+
+        return text.substring(0, length);
+    }
+
+    /**
+     * The shape of the generated data. Instances are immutable; every {@code with...} method
+     * returns a copy.
+     */
+    public static final class Profile {
+        private static final Profile DEFAULT = new Profile(42L, 50, 3, 1.5, 500, 4, 0.05, 20_000);
+
+        private final long seed;
+        private final int categoryCount;
+        private final int minSteps;
+        private final double stepSkew;
+        private final int maxSteps;
+        private final int meanMaterials;
+        private final double longNotesShare;
+        private final int longNotesLength;
+
+        private Profile(long seed, int categoryCount, int minSteps, double stepSkew, int maxSteps, int meanMaterials,
+                        double longNotesShare, int longNotesLength) {
+            this.seed = seed;
+            this.categoryCount = categoryCount;
+            this.minSteps = minSteps;
+            this.stepSkew = stepSkew;
+            this.maxSteps = maxSteps;
+            this.meanMaterials = meanMaterials;
+            this.longNotesShare = longNotesShare;
+            this.longNotesLength = longNotesLength;
+        }
+
+        /**
+         * @return Seed 42, 50 categories, at least 3 steps per project with a Pareto tail (shape
+         *         1.5) capped at 500, about 4 materials, and 5% of projects with 20,000 characters
+         *         of notes.
+         */
+        public static Profile defaults() {
+            return DEFAULT;
+        }
+
+        public Profile withSeed(long seed) {
+            return new Profile(seed, categoryCount, minSteps, stepSkew, maxSteps, meanMaterials, longNotesShare,
+                    longNotesLength);
+        }
+
+        public Profile withCategories(int categoryCount) {
+            return new Profile(seed, categoryCount, minSteps, stepSkew, maxSteps, meanMaterials, longNotesShare,
+                    longNotesLength);
+        }
+
+        /**
+         * @param stepSkew The Pareto shape; smaller values give a heavier tail of projects with many
+         *        steps.
+         */
+        public Profile withSteps(int minSteps, double stepSkew, int maxSteps) {
+            return new Profile(seed, categoryCount, minSteps, stepSkew, maxSteps, meanMaterials, longNotesShare,
+                    longNotesLength);
+        }
+
+        public Profile withMaterials(int meanMaterials) {
+            return new Profile(seed, categoryCount, minSteps, stepSkew, maxSteps, meanMaterials, longNotesShare,
+                    longNotesLength);
+        }
+
+        public Profile withLongNotes(double share, int length) {
+            return new Profile(seed, categoryCount, minSteps, stepSkew, maxSteps, meanMaterials, share, length);
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("seed=%d categories=%d steps=%d..%d (pareto %.2f) materials~%d longNotes=%.0f%%x%d",
+                    seed, categoryCount, minSteps, maxSteps, stepSkew, meanMaterials, longNotesShare * 100,
+                    longNotesLength);
+        }
+    }
+}
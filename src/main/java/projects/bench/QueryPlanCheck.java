@@ -0,0 +1,379 @@
+package projects.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import projects.dao.ArchivePolicy;
+import projects.dao.DbConnection;
+import projects.dao.FetchPlan;
+import projects.dao.ProjectDao;
+import projects.dao.ProjectFilter;
+import projects.dao.ProjectPage;
+import projects.dao.ProjectQuery;
+import projects.dao.ProjectSession;
+import projects.dao.ProjectSnapshot;
+import projects.dao.ProjectSort;
+import projects.dao.SqlCapture;
+import projects.dao.SyncWatermark;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+import projects.http.JsonReader;
+
+/**
+ * Checks the query plans of every statement the DAO runs. It seeds the database with
+ * {@link DatasetGenerator}, runs every {@link ProjectDao} operation with {@link SqlCapture} on, and
+ * runs EXPLAIN FORMAT=JSON on each captured SQL shape with the parameters of its first execution.
+ * The plans are compared with a baseline file, one line per table access:
+ *
+ * <pre>
+ * shape TAB table TAB access type TAB estimated rows TAB filesort
+ * </pre>
+ *
+ * The check fails, with exit status 1, if a shape has no baseline, if a table that was read through
+ * an index is now scanned in full (access type ALL or index), if a filesort appears, or if the
+ * estimated rows of a table pass --max-rows when they were below it in the baseline.
+ *
+ * <pre>
+ * java projects.bench.QueryPlanCheck [--baseline query-plans.tsv] [--projects 10000] [--max-rows 1000]
+ *                                    [--keep] [--update-baseline]
+ * </pre>
+ *
+ * Review the plans and run with --update-baseline to accept them.
+ */
+public class QueryPlanCheck {
+    private static final String BASELINE_HEADER = "# shape\ttable\taccess_type\trows\tfilesort";
+
+    public static void main(String[] args) throws IOException {
+        List<String> options = List.of(args);
+        Path baselinePath = Path.of(option(options, "--baseline", "query-plans.tsv"));
+        int projects = Integer.parseInt(option(options, "--projects", "10000"));
+        long maxRows = Long.parseLong(option(options, "--max-rows", "1000"));
+
+        DatasetGenerator generator = new DatasetGenerator(DatasetGenerator.Profile.defaults());
+
+        if (!options.contains("--keep")) {
+            generator.reset();
+        }
+
+        generator.growTo(projects);
+
+        SqlCapture.enable();
+        runWorkload(new ProjectDao(), projects);
+        Map<String, List<TableAccess>> plans = explainCaptured();
+
+        if (options.contains("--update-baseline")) {
+            writeBaseline(baselinePath, plans);
+            System.out.println("Wrote " + plans.size() + " query plans to " + baselinePath);
+            DbConnection.shutdown();
+            return;
+        }
+
+        Map<String, List<TableAccess>> baseline = Files.exists(baselinePath) ? readBaseline(baselinePath) : Map.of();
+        List<String> failures = compare(plans, baseline, maxRows);
+        DbConnection.shutdown();
+
+        failures.forEach(System.out::println);
+        System.out.println(plans.size() + " query shapes checked, " + failures.size() + " problems.");
+
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static String option(List<String> options, String name, String defaultValue) {
+        int index = options.indexOf(name);
+        return index >= 0 && index + 1 < options.size() ? options.get(index + 1) : defaultValue;
+    }
+
+    /*
+     * Runs every DAO operation once, so that every SQL shape the DAO can produce is captured.
+     */
+    private static void runWorkload(ProjectDao projectDao, int projects) {
+        projectDao.prewarm(1);
+
+        List<Project> all = projectDao.fetchAllProjects();
+        all.get(0).getNotes();
+        projectDao.streamProjects(rs -> { });
+
+        try (ProjectSession session = ProjectSession.open()) {
+            Project lazy = projectDao.fetchProjectById(session, 1, FetchPlan.SCALARS);
+            lazy.getMaterials().size();
+            lazy.getSteps().size();
+            lazy.getCategories().size();
+            projectDao.fetchProjectById(session, 2, FetchPlan.FULL).getSteps().forEach(Step::getStepText);
+        }
+
+        List<Project> page = projectDao.fetchProjectsByIds(List.of(3, 4, 5, 6, 7));
+        page.forEach(project -> project.getSteps().forEach(Step::getStepText));
+        projectDao.fetchProjectVersion(8);
+
+        // The first and second page of every order, so each keyset predicate is captured
+        for (ProjectSort sort : ProjectSort.values()) {
+            for (ProjectQuery query : List.of(ProjectQuery.projects().sortedBy(sort), ProjectQuery.projects().sortedBy(sort).descending())) {
+                ProjectPage first = projectDao.fetchProjects(query.limit(20));
+
+                if (first.hasNext()) {
+                    projectDao.fetchProjects(query.limit(20).returning(ProjectQuery.Shape.GRAPH).after(first.getNextCursor()));
+                }
+            }
+        }
+
+        projectDao.fetchProjects(ProjectQuery.projects().where(ProjectFilter.nameStartsWith("a")
+                .and(ProjectFilter.difficultyBetween(2, 4))));
+
+        ProjectSnapshot snapshot = projectDao.fetchProjectSnapshot();
+        projectDao.refreshProjectSnapshot(snapshot, List.of(9, 10));
+
+        Project added = newProject("Plan check");
+        projectDao.insertProject(added);
+        projectDao.insertProjectBatch(new ArrayList<>(List.of(newProject("Plan check 1"), newProject("Plan check 2"))));
+
+        added.setProjectName("Plan check renamed");
+        projectDao.modifyProjectDetails(added);
+        added.setRowVersion(null);
+        projectDao.modifyProjectDetails(added);
+        projectDao.modifyProjectBatch(List.of(added));
+        projectDao.deleteProject(added.getProjectId());
+        projectDao.restoreProjects(List.of(added.getProjectId()));
+        projectDao.deleteProject(added.getProjectId());
+        projectDao.deleteProjectBatch(List.of(projects));
+
+        long sequence = projectDao.fetchLatestChangeSequence();
+        projectDao.fetchChangesSince(Math.max(0, sequence - 10), 100);
+        projectDao.compactChangeLog(Duration.ofDays(7));
+
+        // A generated project with children, deleted long ago, so every purge statement runs whatever
+        // else the dataset holds
+        int purged = 11;
+        projectDao.deleteProject(purged);
+        backdateDeletion(purged);
+        List<Integer> toPurge = projectDao.fetchProjectsToPurge();
+
+        if (!toPurge.contains(purged)) {
+            throw new IllegalStateException("Project " + purged + " was not picked up for purging");
+        }
+
+        for (Integer projectId : toPurge) {
+            for (ProjectDao.PurgeTable table : ProjectDao.PurgeTable.values()) {
+                projectDao.purgeChildChunk(table, projectId, 500);
+            }
+
+            projectDao.purgeProjectRow(projectId);
+        }
+
+        projectDao.archiveProjects(ArchivePolicy.completed().and(ArchivePolicy.olderThanNewest(projects / 2)), 10);
+        projectDao.fetchProjectDelta(SyncWatermark.INITIAL, 50);
+
+        // The plan-check profile turns compression on, so that these shapes are captured too
+        if (ProjectDao.isTextCompressionOn()) {
+            for (ProjectDao.TextColumn column : ProjectDao.TextColumn.values()) {
+                projectDao.compressTextChunk(column, 0, 10);
+            }
+        }
+    }
+
+    // A plain Statement, which SqlCapture does not record, since this is set-up and not a DAO shape
+    private static void backdateDeletion(int projectId) {
+        try (Connection conn = DbConnection.getConnection(); Statement stmnt = conn.createStatement()) {
+            stmnt.executeUpdate("UPDATE project SET deleted_at = deleted_at - INTERVAL 30 DAY WHERE project_id = " + projectId);
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private static Project newProject(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        project.setEstimatedHours(new BigDecimal("4.00"));
+        project.setActualHours(new BigDecimal("2.00"));
+        project.setDifficulty(2);
+        project.setNotes("Added by the query plan check");
+        return project;
+    }
+
+    private static Map<String, List<TableAccess>> explainCaptured() {
+        Map<String, List<TableAccess>> plans = new LinkedHashMap<>();
+
+        try (Connection conn = DbConnection.getConnection()) {
+            for (Map.Entry<String, SqlCapture.CapturedStatement> entry : SqlCapture.captured().entrySet()) {
+                String sql = entry.getValue().getSql().strip();
+                String verb = sql.substring(0, sql.indexOf(' ')).toUpperCase(Locale.ROOT);
+
+                // INSERT ... VALUES has no plan worth checking
+                if (verb.equals("INSERT") && !sql.toUpperCase(Locale.ROOT).contains("SELECT")) {
+                    continue;
+                }
+
+                if (!List.of("SELECT", "INSERT", "UPDATE", "DELETE").contains(verb)) {
+                    continue;
+                }
+
+                plans.put(entry.getKey(), explain(conn, sql, entry.getValue().getParameters()));
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        return plans;
+    }
+
+    private static List<TableAccess> explain(Connection conn, String sql, List<Object> parameters) throws SQLException {
+        try (PreparedStatement stmnt = conn.prepareStatement("EXPLAIN FORMAT=JSON " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                if (parameters.get(i) == null) {
+                    stmnt.setNull(i + 1, Types.NULL);
+                } else {
+                    stmnt.setObject(i + 1, parameters.get(i));
+                }
+            }
+
+            try (ResultSet rs = stmnt.executeQuery()) {
+                rs.next();
+                Map<String, Object> plan = JsonReader.parseObject(rs.getString(1));
+                List<TableAccess> accesses = new ArrayList<>();
+                collectTables(plan, false, accesses);
+                return accesses;
+            }
+        }
+    }
+
+    /*
+     * Walks the plan tree. Table nodes carry "table_name"; a filesort is marked on an enclosing
+     * ordering or grouping node, so it is passed down to the tables below it.
+     */
+    @SuppressWarnings("unchecked")
+    private static void collectTables(Object node, boolean filesort, List<TableAccess> accesses) {
+        if (node instanceof List) {
+            for (Object element : (List<Object>)node) {
+                collectTables(element, filesort, accesses);
+            }
+            return;
+        }
+
+        if (!(node instanceof Map)) {
+            return;
+        }
+
+        Map<String, Object> members = (Map<String, Object>)node;
+        boolean sorted = filesort || Boolean.TRUE.equals(members.get("using_filesort"));
+
+        if (members.containsKey("table_name") && members.containsKey("access_type")) {
+            Object rows = members.get("rows_examined_per_scan");
+            accesses.add(new TableAccess((String)members.get("table_name"), (String)members.get("access_type"),
+                    rows instanceof BigDecimal ? ((BigDecimal)rows).longValue() : 0, sorted));
+        }
+
+        for (Object child : members.values()) {
+            collectTables(child, sorted, accesses);
+        }
+    }
+
+    private static List<String> compare(Map<String, List<TableAccess>> plans, Map<String, List<TableAccess>> baseline,
+            long maxRows) {
+        List<String> failures = new ArrayList<>();
+
+        plans.forEach((shape, accesses) -> {
+            List<TableAccess> expected = baseline.get(shape);
+
+            if (expected == null) {
+                failures.add("NEW        " + shape + "\n           " + accesses);
+                return;
+            }
+
+            for (TableAccess access : accesses) {
+                TableAccess before = expected.stream().filter(e -> e.table.equals(access.table)).findFirst().orElse(null);
+
+                if (access.isFullScan() && (before == null || !before.isFullScan())) {
+                    failures.add("FULL SCAN  " + access.table + " (" + access.accessType + ") in " + shape);
+                }
+
+                if (access.filesort && (before == null || !before.filesort)) {
+                    failures.add("FILESORT   " + access.table + " in " + shape);
+                }
+
+                if (access.rows > maxRows && (before == null || before.rows <= maxRows)) {
+                    failures.add("ROWS       " + access.table + " estimates " + access.rows + " rows (limit " + maxRows
+                            + ") in " + shape);
+                }
+            }
+        });
+
+        return failures;
+    }
+
+    private static void writeBaseline(Path path, Map<String, List<TableAccess>> plans) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println(BASELINE_HEADER);
+
+            plans.forEach((shape, accesses) -> {
+                for (TableAccess access : accesses) {
+                    out.println(shape + "\t" + access.table + "\t" + access.accessType + "\t" + access.rows + "\t"
+                            + access.filesort);
+                }
+
+                if (accesses.isEmpty()) {
+                    // Plans without table access, such as a lookup optimized away, still need a baseline
+                    out.println(shape + "\t\t\t0\tfalse");
+                }
+            });
+        }
+    }
+
+    private static Map<String, List<TableAccess>> readBaseline(Path path) throws IOException {
+        Map<String, List<TableAccess>> baseline = new LinkedHashMap<>();
+
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\t", -1);
+            List<TableAccess> accesses = baseline.computeIfAbsent(fields[0], shape -> new ArrayList<>());
+
+            if (!fields[1].isEmpty()) {
+                accesses.add(new TableAccess(fields[1], fields[2], Long.parseLong(fields[3]),
+                        Boolean.parseBoolean(fields[4])));
+            }
+        }
+
+        return baseline;
+    }
+
+    private static class TableAccess {
+        private final String table;
+        private final String accessType;
+        private final long rows;
+        private final boolean filesort;
+
+        private TableAccess(String table, String accessType, long rows, boolean filesort) {
+            this.table = table;
+            this.accessType = accessType;
+            this.rows = rows;
+            this.filesort = filesort;
+        }
+
+        private boolean isFullScan() {
+            return accessType.equals("ALL") || accessType.equals("index");
+        }
+
+        @Override
+        public String toString() {
+            return table + ":" + accessType + ":" + rows + (filesort ? ":filesort" : "");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package projects.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.service.ProjectService;
+
+/**
+ * Measures how the project operations slow down as the data grows. For each scale the dataset is
+ * grown with {@link DatasetGenerator}, then every operation runs a number of times and its median
+ * and 95th percentile latency are recorded. The report shows, for each pair of neighbouring scales,
+ * the scaling exponent log(t2 / t1) / log(n2 / n1): about 0 for a primary key lookup, about 1 for a
+ * full scan. Operations that grow faster than expected are flagged.
+ *
+ * <pre>
+ * java projects.bench.ScalingReport [--scales 10000,100000,1000000] [--seed 42] [--samples 50]
+ *                                   [--out report.tsv] [--keep]
+ * </pre>
+ *
+ * The tables are emptied first unless --keep is given. The report goes to standard output and, with
+ * --out, as tab-separated rows to a file.
+ */
+public class ScalingReport {
+    // How far an exponent may exceed the expected one before it is flagged
+    private static final double EXPONENT_TOLERANCE = 0.3;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MAX_FULL_SCAN_RUNS = 5;
+
+    private final ProjectService projectService = new ProjectService();
+    private final ProjectDao projectDao = new ProjectDao();
+    private final Map<String, Map<Integer, Result>> results = new LinkedHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        List<String> options = List.of(args);
+        int[] scales = Arrays.stream(option(options, "--scales", "10000,100000,1000000").split(","))
+                .mapToInt(scale -> Integer.parseInt(scale.strip())).sorted().toArray();
+        long seed = Long.parseLong(option(options, "--seed", "42"));
+        int samples = Integer.parseInt(option(options, "--samples", "50"));
+        String out = option(options, "--out", null);
+
+        DatasetGenerator generator = new DatasetGenerator(DatasetGenerator.Profile.defaults().withSeed(seed));
+        ScalingReport report = new ScalingReport();
+
+        if (!options.contains("--keep")) {
+            generator.reset();
+        }
+
+        for (int scale : scales) {
+            long start = System.nanoTime();
+            int added = generator.growTo(scale);
+            System.out.printf("Scale %,d: generated %,d projects in %.1f s%n", scale, added,
+                    (System.nanoTime() - start) / 1e9);
+            report.measure(scale, samples, new SplittableRandom(seed ^ scale));
+        }
+
+        report.print(System.out, scales);
+
+        if (out != null) {
+            try (PrintStream file = new PrintStream(Files.newOutputStream(Path.of(out)))) {
+                report.writeTsv(file);
+            }
+        }
+
+        DbConnection.shutdown();
+    }
+
+    private static String option(List<String> options, String name, String defaultValue) {
+        int index = options.indexOf(name);
+        return index >= 0 && index + 1 < options.size() ? options.get(index + 1) : defaultValue;
+    }
+
+    private void measure(int scale, int samples, SplittableRandom random) {
+        run(Operation.FETCH_ALL, scale, Math.min(samples, MAX_FULL_SCAN_RUNS),
+                () -> projectService.fetchAllProjects());
+
+        run(Operation.FETCH_BY_ID, scale, samples,
+                () -> projectService.fetchProjectById(1 + random.nextInt(scale)));
+
+        // Drawn without replacement, so every timed run really deletes a project
+        Iterator<Integer> toDelete = distinctIds(scale, WARMUP_RUNS + samples, random).iterator();
+        List<Integer> deleted = new ArrayList<>();
+        run(Operation.DELETE, scale, samples, () -> {
+            Integer projectId = toDelete.next();
+            projectService.deleteProject(projectId);
+            deleted.add(projectId);
+        });
+
+        // Deletes only mark the rows, so restoring them keeps every scale's dataset complete
+        projectDao.restoreProjects(deleted);
+    }
+
+    /*
+     * The first count IDs of a shuffled 1..scale.
+     */
+    private static List<Integer> distinctIds(int scale, int count, SplittableRandom random) {
+        int[] ids = new int[scale];
+
+        for (int i = 0; i < scale; i++) {
+            ids[i] = i + 1;
+        }
+
+        List<Integer> drawn = new ArrayList<>(count);
+
+        for (int i = 0; i < Math.min(count, scale); i++) {
+            int pick = i + random.nextInt(scale - i);
+            int id = ids[pick];
+            ids[pick] = ids[i];
+            ids[i] = id;
+            drawn.add(id);
+        }
+
+        return drawn;
+    }
+
+    private void run(Operation operation, int scale, int samples, Runnable action) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            action.run();
+        }
+
+        long[] nanos = new long[samples];
+
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            action.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+        results.computeIfAbsent(operation.label, label -> new LinkedHashMap<>())
+                .put(scale, new Result(nanos[nanos.length / 2], nanos[(int)Math.ceil(nanos.length * 0.95) - 1]));
+    }
+
+    private void print(PrintStream out, int[] scales) {
+        out.println();
+        out.printf("%-16s %12s %12s %12s %10s%n", "operation", "projects", "median ms", "p95 ms", "exponent");
+
+        for (Operation operation : Operation.values()) {
+            Map<Integer, Result> byScale = results.get(operation.label);
+
+            for (int i = 0; i < scales.length; i++) {
+                Result result = byScale.get(scales[i]);
+                String exponent = "";
+
+                if (i > 0) {
+                    double value = exponent(scales[i - 1], byScale.get(scales[i - 1]), scales[i], result);
+                    exponent = String.format("%.2f%s", value,
+                            value > operation.expectedExponent + EXPONENT_TOLERANCE ? " !" : "");
+                }
+
+                out.printf("%-16s %,12d %12.2f %12.2f %10s%n", operation.label, scales[i], result.medianNanos / 1e6,
+                        result.p95Nanos / 1e6, exponent);
+            }
+        }
+
+        out.println("! = grows faster than expected (exponent above " + EXPONENT_TOLERANCE + " over the expected value)");
+    }
+
+    private static double exponent(int smallScale, Result small, int largeScale, Result large) {
+        return Math.log((double)large.medianNanos / small.medianNanos) / Math.log((double)largeScale / smallScale);
+    }
+
+    private void writeTsv(PrintStream out) {
+        out.println("operation\tprojects\tmedian_ns\tp95_ns");
+        results.forEach((label, byScale) -> byScale.forEach((scale, result) ->
+                out.println(label + "\t" + scale + "\t" + result.medianNanos + "\t" + result.p95Nanos)));
+    }
+
+    private enum Operation {
+        FETCH_ALL("fetchAllProjects", 1.0), FETCH_BY_ID("fetchProjectById", 0.0), DELETE("deleteProject", 0.0);
+
+        private final String label;
+        private final double expectedExponent;
+
+        Operation(String label, double expectedExponent) {
+            this.label = label;
+            this.expectedExponent = expectedExponent;
+        }
+    }
+
+    private static class Result {
+        private final long medianNanos;
+        private final long p95Nanos;
+
+        private Result(long medianNanos, long p95Nanos) {
+            this.medianNanos = medianNanos;
+            this.p95Nanos = p95Nanos;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package projects.dao;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import projects.exception.DeadlineExceededException;
+import projects.exception.OverloadException;
+
+/**
+ * Limits how many connections are in use at once. Callers beyond the limit wait in a bounded FIFO
+ * queue for at most the maximum wait; when the queue is full, or the wait runs out, they get an
+ * {@link OverloadException} at once instead of piling up behind a slow database.
+ *
+ * The limit adapts to how long connections are held, like a gradient concurrency limit: a
+ * long-term average of the hold time stands for the database's unloaded latency, and a short-term
+ * average for its current latency. While the two agree the limit grows by about its square root per
+ * sample; when current latency rises above the long-term one, the limit shrinks in proportion,
+ * down to half per sample. Growth only happens while the limit is actually being used.
+ */
+public final class AdmissionController {
+    // Current latency may exceed the long-term latency by this factor before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double SHORT_WINDOW_WEIGHT = 0.1;
+    private static final double LONG_WINDOW_WEIGHT = 0.01;
+    // A connection held by a long session counts as at most this many times the long-term latency
+    private static final double MAX_SAMPLE_FACTOR = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitAvailable = lock.newCondition();
+    private double estimatedLimit;
+    private int limit;
+    private int inFlight;
+    private int queued;
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public AdmissionController(int initialLimit, int minLimit, int maxLimit, int maxQueued, Duration maxWait) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int)estimatedLimit;
+    }
+
+    /**
+     * Waits for a permit.
+     *
+     * @return The time the permit was granted, to pass to {@link #release(long)}.
+     * @throws OverloadException If the queue is full, the maximum wait runs out or the thread is
+     *         interrupted while waiting.
+     * @throws DeadlineExceededException If the thread's {@link Deadline} passes first.
+     */
+    public long acquire() {
+        Deadline deadline = Deadline.current();
+
+        if (deadline != null) {
+            deadline.check();
+        }
+
+        lock.lock();
+
+        try {
+            if (inFlight < limit && queued == 0) {
+                inFlight++;
+                return System.nanoTime();
+            }
+
+            if (queued >= maxQueued) {
+                rejected.incrementAndGet();
+                throw new OverloadException("The database is overloaded: " + inFlight + " connections in use and "
+                        + queued + " callers waiting. Try again later.");
+            }
+
+            queued++;
+
+            try {
+                long remaining = deadline == null ? maxWaitNanos : Math.min(maxWaitNanos, deadline.remainingNanos());
+
+                while (inFlight >= limit) {
+                    if (remaining <= 0) {
+                        if (deadline != null && deadline.isExpired()) {
+                            throw new DeadlineExceededException(deadline.getOperation()
+                                    + " ran past its deadline waiting for a database connection.");
+                        }
+
+                        timedOut.incrementAndGet();
+                        throw new OverloadException("The database is overloaded: no connection became available within "
+                                + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms. Try again later.");
+                    }
+
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+
+                inFlight++;
+                return System.nanoTime();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OverloadException("Interrupted while waiting for a database connection.");
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit and feeds the time it was held into the limit.
+     */
+    public void release(long acquiredNanos) {
+        long heldNanos = System.nanoTime() - acquiredNanos;
+        lock.lock();
+
+        try {
+            int used = inFlight;
+            inFlight--;
+            int previousLimit = limit;
+            adjustLimit(heldNanos, used);
+
+            if (limit > previousLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustLimit(long heldNanos, int used) {
+        if (longLatencyNanos == 0) {
+            shortLatencyNanos = heldNanos;
+            longLatencyNanos = heldNanos;
+            return;
+        }
+
+        double sample = Math.min(heldNanos, longLatencyNanos * MAX_SAMPLE_FACTOR);
+        shortLatencyNanos += (sample - shortLatencyNanos) * SHORT_WINDOW_WEIGHT;
+        longLatencyNanos += (sample - longLatencyNanos) * LONG_WINDOW_WEIGHT;
+
+        // After a lasting slowdown, let the baseline settle at the new latency instead of shrinking forever
+        if (longLatencyNanos / shortLatencyNanos > 2) {
+            longLatencyNanos *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatencyNanos / shortLatencyNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+        if (newLimit > estimatedLimit && used < estimatedLimit / 2) {
+            return;
+        }
+
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int)estimatedLimit;
+    }
+
+    public int getLimit() {
+        lock.lock();
+
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of callers turned away because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return The number of callers that waited in the queue past the maximum wait.
+     */
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+}
@@ -0,0 +1,44 @@
+package projects.dao;
+
+/**
+ * Selects the projects that the archiver moves out of the hot tables. Policies can be combined with
+ * {@link #and}; any {@link ProjectFilter} can serve as a policy.
+ */
+public final class ArchivePolicy {
+    private final ProjectFilter filter;
+
+    private ArchivePolicy(ProjectFilter filter) {
+        this.filter = filter;
+    }
+
+    public static ArchivePolicy matching(ProjectFilter filter) {
+        return new ArchivePolicy(filter);
+    }
+
+    /**
+     * Projects whose actual hours have reached the estimate.
+     */
+    public static ArchivePolicy completed() {
+        return matching(ProjectFilter.completed());
+    }
+
+    /**
+     * Projects older than the newest {@code keep} projects, by creation order.
+     */
+    public static ArchivePolicy olderThanNewest(int keep) {
+        return matching(ProjectFilter.olderThanNewest(keep));
+    }
+
+    public ArchivePolicy and(ArchivePolicy other) {
+        return matching(filter.and(other.filter));
+    }
+
+    ProjectFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return filter.toString();
+    }
+}
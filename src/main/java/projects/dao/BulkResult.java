@@ -0,0 +1,71 @@
+package projects.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a bulk operation for each project it was asked to change, in the order the
+ * projects were processed.
+ */
+public final class BulkResult {
+    public enum Outcome {
+        /** The project was changed. */
+        APPLIED,
+        /** The project does not exist, is deleted, or no longer matched when its chunk ran. */
+        NOT_FOUND,
+        /** The project's chunk was rolled back; see {@link #getError(Integer)}. */
+        FAILED
+    }
+
+    private final Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+    private final Map<Integer, String> errors = new LinkedHashMap<>();
+
+    void record(Integer projectId, Outcome outcome) {
+        outcomes.put(projectId, outcome);
+    }
+
+    void recordFailure(Integer projectId, String error) {
+        outcomes.put(projectId, Outcome.FAILED);
+        errors.put(projectId, error);
+    }
+
+    /**
+     * Returns the outcome for the project, or null if the operation did not cover it.
+     */
+    public Outcome getOutcome(Integer projectId) {
+        return outcomes.get(projectId);
+    }
+
+    public String getError(Integer projectId) {
+        return errors.get(projectId);
+    }
+
+    public Map<Integer, Outcome> getOutcomes() {
+        return Collections.unmodifiableMap(outcomes);
+    }
+
+    public List<Integer> getProjectIds(Outcome outcome) {
+        List<Integer> ids = new ArrayList<>();
+
+        outcomes.forEach((id, value) -> {
+            if (value == outcome) {
+                ids.add(id);
+            }
+        });
+
+        return ids;
+    }
+
+    public int count(Outcome outcome) {
+        return (int)outcomes.values().stream().filter(value -> value == outcome).count();
+    }
+
+    @Override
+    public String toString() {
+        return "applied=" + count(Outcome.APPLIED) + ", not found=" + count(Outcome.NOT_FOUND)
+                + ", failed=" + count(Outcome.FAILED);
+    }
+}
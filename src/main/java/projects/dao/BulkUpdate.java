@@ -0,0 +1,56 @@
+package projects.dao;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The scalar columns a bulk update sets on every project it covers. Columns that are not set keep
+ * their values. Instances are immutable; each {@code with} method returns a copy.
+ */
+public final class BulkUpdate {
+    private final Map<String, Object> assignments;
+
+    private BulkUpdate(Map<String, Object> assignments) {
+        this.assignments = Collections.unmodifiableMap(assignments);
+    }
+
+    public static BulkUpdate set() {
+        return new BulkUpdate(new LinkedHashMap<>());
+    }
+
+    public BulkUpdate withDifficulty(int difficulty) {
+        return with("difficulty", difficulty);
+    }
+
+    public BulkUpdate withEstimatedHours(BigDecimal estimatedHours) {
+        return with("estimated_hours", estimatedHours);
+    }
+
+    public BulkUpdate withActualHours(BigDecimal actualHours) {
+        return with("actual_hours", actualHours);
+    }
+
+    private BulkUpdate with(String column, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException(column + " must not be null");
+        }
+
+        Map<String, Object> copy = new LinkedHashMap<>(assignments);
+        copy.put(column, value);
+        return new BulkUpdate(copy);
+    }
+
+    /**
+     * Column name to value, in the order the columns were set.
+     */
+    Map<String, Object> getAssignments() {
+        return assignments;
+    }
+
+    @Override
+    public String toString() {
+        return assignments.toString();
+    }
+}
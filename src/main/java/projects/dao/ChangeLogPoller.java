@@ -0,0 +1,113 @@
+package projects.dao;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import projects.exception.DbException;
+
+/**
+ * Tails the project change log and publishes each new entry to in-process subscribers, typically
+ * caches that drop the changed project. Every node runs its own poller; the log is shared through
+ * the database, so a write on any node reaches the subscribers on all of them.
+ *
+ * Sequence numbers are assigned when a row is inserted but become visible when its transaction
+ * commits, so a lower number can appear after a higher one has been read. The poller therefore
+ * re-reads a window of {@link #GAP_WINDOW} sequence numbers below the highest one seen and skips
+ * entries it has already published.
+ */
+public class ChangeLogPoller implements Flow.Publisher<ProjectChange>, AutoCloseable {
+    private static final int BATCH_SIZE = 500;
+    private static final long GAP_WINDOW = 1000;
+
+    // Compact once per this many polls
+    private static final int COMPACT_EVERY = 100;
+
+    private final ProjectDao projectDao;
+    private final Duration retention;
+    private final SubmissionPublisher<ProjectChange> publisher = new SubmissionPublisher<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-log-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TreeSet<Long> published = new TreeSet<>();
+    private long highestSequence;
+    private int polls;
+
+    /**
+     * @param retention How long log entries are kept before they are compacted away. It must be
+     *        much longer than the poll interval of every node.
+     */
+    public ChangeLogPoller(ProjectDao projectDao, Duration retention) {
+        this.projectDao = projectDao;
+        this.retention = retention;
+    }
+
+    /**
+     * Starts polling. Only changes logged after this call are published.
+     */
+    public ChangeLogPoller start(Duration pollInterval) {
+        highestSequence = projectDao.fetchLatestChangeSequence();
+
+        // Entries already in the window are history, not news
+        for (ProjectChange change : projectDao.fetchChangesSince(Math.max(0, highestSequence - GAP_WINDOW),
+                (int)GAP_WINDOW + BATCH_SIZE)) {
+            published.add(change.getSequence());
+        }
+
+        long millis = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::pollSafely, millis, millis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ProjectChange> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (DbException e) {
+            // Try again on the next tick; nothing has been skipped
+            System.err.println("Change log poll failed: " + e.getMessage());
+        }
+    }
+
+    void poll() {
+        // At most GAP_WINDOW entries lie in the re-read window, so a full batch always holds new ones
+        int limit = (int)GAP_WINDOW + BATCH_SIZE;
+        List<ProjectChange> changes;
+
+        do {
+            long from = Math.max(0, highestSequence - GAP_WINDOW);
+            changes = projectDao.fetchChangesSince(from, limit);
+
+            for (ProjectChange change : changes) {
+                if (published.add(change.getSequence())) {
+                    publisher.submit(change);
+                    highestSequence = Math.max(highestSequence, change.getSequence());
+                }
+            }
+
+            // Forget sequence numbers that have left the window
+            published.headSet(highestSequence - GAP_WINDOW, true).clear();
+        } while (changes.size() == limit);
+
+        if (++polls % COMPACT_EVERY == 0) {
+            projectDao.compactChangeLog(retention);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        publisher.close();
+    }
+}
@@ -1,29 +1,201 @@
 package projects.dao;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import projects.exception.DbException;
 
 public class DbConnection {
     // Constants for MySQL connection
     private static final String HOST = "localhost";
-    private static final String PORT = "3306"; 
+    private static final String PORT = "3306";
     private static final String SCHEMA = "projects";
     private static final String USER = "projects";
     private static final String PASSWORD = "projects";
 
-    // JDBC URL for the MySQL database
-    public static String URI = String.format("jdbc:mysql://%s:%s/%s?user=%s&password=%s", HOST, PORT, SCHEMA, USER, PASSWORD);
+    // Connecting gives up after CONNECT_TIMEOUT_MILLIS. SOCKET_TIMEOUT_MILLIS is the backstop for
+    // work that runs without a Deadline, or a server that stops answering even a cancel: a read that
+    // waits longer than that breaks the connection.
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int SOCKET_TIMEOUT_MILLIS = 120_000;
 
+    // JDBC URL for the MySQL database. The statement cache lets a prewarmed connection reuse the
+    // parsed form of statements that were prepared before the first user action. Rewriting batched
+    // statements sends a JDBC batch in a few round trips instead of one per row.
+    public static String URI = String.format("jdbc:mysql://%s:%s/%s?user=%s&password=%s"
+            + "&cachePrepStmts=true&prepStmtCacheSize=64&rewriteBatchedStatements=true"
+            + "&connectTimeout=%d&socketTimeout=%d", HOST, PORT, SCHEMA, USER, PASSWORD,
+            CONNECT_TIMEOUT_MILLIS, SOCKET_TIMEOUT_MILLIS);
 
+    // Connections closed by callers are kept open here, up to MAX_IDLE, and handed out again
+    private static final int MAX_IDLE = 4;
+    private static final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+    // Every connection handed out holds a permit until it is closed; see AdmissionController
+    private static final AdmissionController admission = new AdmissionController(16, 2, 64, 200, Duration.ofSeconds(2));
+
+    /**
+     * Returns a connection once the admission controller lets the caller in.
+     *
+     * @throws projects.exception.OverloadException If the database is overloaded.
+     */
     public static Connection getConnection() {
+        long permit = admission.acquire();
+
+        try {
+            Connection physical;
+
+            while ((physical = idle.pollFirst()) != null) {
+                if (isUsable(physical)) {
+                    return pooled(physical, permit);
+                }
+            }
+
+            return pooled(openPhysicalConnection(), permit);
+        } catch (RuntimeException e) {
+            admission.release(permit);
+            throw e;
+        }
+    }
+
+    public static AdmissionController admission() {
+        return admission;
+    }
+
+    /**
+     * Opens connections until {@code count} are idle in the pool, so that later calls to
+     * {@link #getConnection()} do not pay for the connection handshake.
+     */
+    public static void prewarm(int count) {
+        int target = Math.min(count, MAX_IDLE);
+
+        while (idle.size() < target) {
+            idle.offerLast(openPhysicalConnection());
+        }
+    }
+
+    /**
+     * Closes the idle connections.
+     */
+    public static void shutdown() {
+        Connection physical;
+
+        while ((physical = idle.pollFirst()) != null) {
+            closeQuietly(physical);
+        }
+    }
+
+    private static Connection openPhysicalConnection() {
         try {
             Connection connection = DriverManager.getConnection(URI);
-            System.out.println("Connected to the MySQL database." + URI);
+            // Without the URI, which holds the password, and off stdout, which carries batch results
+            System.err.printf("Connected to the MySQL database %s:%s/%s.%n", HOST, PORT, SCHEMA);
             return connection;
         } catch (SQLException e) {
             throw new DbException("Failed to connect to the database.", e);
         }
     }
-}
\ No newline at end of file
+
+    private static boolean isUsable(Connection physical) {
+        try {
+            return physical.isValid(1);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+            return false;
+        }
+    }
+
+    private static void release(Connection physical) {
+        try {
+            if (!physical.isClosed() && idle.size() < MAX_IDLE) {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+
+                idle.offerFirst(physical);
+                return;
+            }
+        } catch (SQLException e) {
+            // Fall through and discard the connection
+        }
+
+        closeQuietly(physical);
+    }
+
+    private static void closeQuietly(Connection physical) {
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // The connection is being discarded
+        }
+    }
+
+    /*
+     * Wraps a physical connection so that close() returns it to the pool instead of closing it, and
+     * returns the caller's admission permit. Statements created while a Deadline is bound time out
+     * when it passes.
+     */
+    private static Connection pooled(Connection physical, long permit) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            release(physical);
+                            admission.release(permit);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || physical.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled" + physical;
+                    default:
+                        if (closed) {
+                            throw new SQLException("The connection has been closed.");
+                        }
+
+                        // Checked before the statement exists, so a passed deadline leaks nothing
+                        Deadline deadline = Statement.class.isAssignableFrom(method.getReturnType()) ? Deadline.current() : null;
+                        int queryTimeout = deadline == null ? 0 : deadline.queryTimeoutSeconds();
+
+                        try {
+                            Object result = method.invoke(physical, args);
+
+                            if (queryTimeout > 0) {
+                                ((Statement)result).setQueryTimeout(queryTimeout);
+                            }
+
+                            if (SqlCapture.isEnabled() && method.getName().equals("prepareStatement")) {
+                                return SqlCapture.wrap((PreparedStatement)result, (String)args[0]);
+                            }
+
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+
+        return (Connection)Proxy.newProxyInstance(DbConnection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, handler);
+    }
+}
@@ -0,0 +1,139 @@
+package projects.dao;
+
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import projects.exception.DeadlineExceededException;
+
+/**
+ * The time by which the operation running on this thread must finish. While a deadline is bound,
+ * waiting for a connection stops when it passes, and every statement prepared on a pooled
+ * connection gets a query timeout of the time left, so the driver cancels the statement on the
+ * server when the deadline passes. A deadline started inside another one never extends it: the
+ * earlier of the two applies.
+ *
+ * <pre>
+ * try (Deadline deadline = Deadline.start("fetchProjectById", Duration.ofSeconds(2))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * Timeouts are counted per operation name; see {@link #getTimeoutCounts()}.
+ */
+public final class Deadline implements AutoCloseable {
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+    private static final Map<String, LongAdder> timeouts = new ConcurrentHashMap<>();
+
+    private final String operation;
+    private final long expiresAtNanos;
+    private final Deadline enclosing;
+
+    private Deadline(String operation, long expiresAtNanos, Deadline enclosing) {
+        this.operation = operation;
+        this.expiresAtNanos = expiresAtNanos;
+        this.enclosing = enclosing;
+    }
+
+    /**
+     * Binds a deadline of {@code timeout} from now to this thread until it is closed.
+     */
+    public static Deadline start(String operation, Duration timeout) {
+        Deadline enclosing = current.get();
+        long expiresAt = System.nanoTime() + timeout.toNanos();
+
+        if (enclosing != null && enclosing.expiresAtNanos - expiresAt < 0) {
+            expiresAt = enclosing.expiresAtNanos;
+        }
+
+        Deadline deadline = new Deadline(operation, expiresAt, enclosing);
+        current.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Returns the deadline bound to this thread, or null if there is none.
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @throws DeadlineExceededException If the deadline has passed.
+     */
+    public void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException(operation + " ran past its deadline.");
+        }
+    }
+
+    /**
+     * Returns the time left in whole seconds for {@link java.sql.Statement#setQueryTimeout(int)},
+     * rounded up, since zero would mean no timeout at all.
+     *
+     * @throws DeadlineExceededException If the deadline has passed.
+     */
+    public int queryTimeoutSeconds() {
+        check();
+        long seconds = (remainingNanos() + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        return (int)Math.min(Math.max(seconds, 1), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns true if the exception, or one of its causes, is a deadline or query timeout.
+     */
+    public static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineExceededException || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public static void recordTimeout(String operation) {
+        timeouts.computeIfAbsent(operation, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the number of timeouts recorded for each operation, by operation name.
+     */
+    public static Map<String, Long> getTimeoutCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        timeouts.forEach((operation, count) -> counts.put(operation, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Restores the enclosing deadline, if any.
+     */
+    @Override
+    public void close() {
+        if (enclosing == null) {
+            current.remove();
+        } else {
+            current.set(enclosing);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return operation + " (" + TimeUnit.NANOSECONDS.toMillis(remainingNanos()) + " ms left)";
+    }
+}
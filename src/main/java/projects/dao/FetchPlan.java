@@ -0,0 +1,41 @@
+package projects.dao;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Names the child collections of a project that should be read together with the project row.
+ * Collections that are not in the plan are returned as lazy lists.
+ */
+public final class FetchPlan {
+    public enum Association {
+        MATERIALS, STEPS, CATEGORIES
+    }
+
+    public static final FetchPlan SCALARS = new FetchPlan(EnumSet.noneOf(Association.class));
+    public static final FetchPlan FULL = new FetchPlan(EnumSet.allOf(Association.class));
+
+    private final Set<Association> associations;
+
+    private FetchPlan(EnumSet<Association> associations) {
+        this.associations = Collections.unmodifiableSet(associations);
+    }
+
+    public static FetchPlan of(Association first, Association... rest) {
+        return new FetchPlan(EnumSet.of(first, rest));
+    }
+
+    public boolean includes(Association association) {
+        return associations.contains(association);
+    }
+
+    public Set<Association> getAssociations() {
+        return associations;
+    }
+
+    @Override
+    public String toString() {
+        return "FetchPlan" + associations;
+    }
+}
@@ -0,0 +1,150 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import projects.exception.DbException;
+
+/**
+ * Applies the entries of a {@link WriteJournal} to MySQL in the background, in append order, in
+ * batches of at most {@code batchSize} entries per transaction. The journal checkpoint moves only
+ * after a batch commits, and each entry's idempotency key commits with it, so entries replayed after
+ * a crash are not applied twice.
+ *
+ * While MySQL is unavailable the entries stay in the journal and the next run retries them. An entry
+ * whose data MySQL refuses would block every entry behind it, so it is recorded as rejected and
+ * skipped instead.
+ */
+public class JournalApplier implements AutoCloseable {
+    // How long close() waits for a batch in progress; a stuck statement is cut off by the socket timeout
+    private static final Duration CLOSE_WAIT = Duration.ofMinutes(2);
+
+    private final WriteJournal journal;
+    private final ProjectDao projectDao;
+    private final int batchSize;
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-applier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JournalApplier(WriteJournal journal, ProjectDao projectDao, int batchSize) {
+        this.journal = journal;
+        this.projectDao = projectDao;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts applying at once, which replays whatever an earlier run left in the journal, and then
+     * every interval.
+     */
+    public JournalApplier start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(this::applySafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Applies the pending entries soon instead of at the next interval. Calls that arrive while a
+     * run is queued share it.
+     */
+    public void wake() {
+        if (wakeQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeQueued.set(false);
+                applySafely();
+            });
+        }
+    }
+
+    private void applySafely() {
+        try {
+            applyPending();
+        } catch (DbException | IOException e) {
+            // The entries stay in the journal and are retried on the next run
+            System.err.println("Applying the write journal failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies batches until the journal has no pending entries.
+     *
+     * @return The number of entries applied or rejected.
+     */
+    public int applyPending() throws IOException {
+        int total = 0;
+        List<JournalEntry> entries;
+
+        while (!scheduler.isShutdown() && !(entries = journal.readPending(batchSize)).isEmpty()) {
+            try {
+                projectDao.applyJournalEntries(entries);
+                journal.markApplied(entries.get(entries.size() - 1).getSequence());
+            } catch (DbException e) {
+                if (!isRefusedData(e)) {
+                    throw e;
+                }
+
+                applyOneByOne(entries);
+            }
+
+            total += entries.size();
+        }
+
+        return total;
+    }
+
+    /*
+     * Finds the entry that failed the batch by applying the entries one at a time.
+     */
+    private void applyOneByOne(List<JournalEntry> entries) throws IOException {
+        for (JournalEntry entry : entries) {
+            try {
+                projectDao.applyJournalEntries(List.of(entry));
+            } catch (DbException e) {
+                if (!isRefusedData(e)) {
+                    throw e;
+                }
+
+                projectDao.rejectJournalEntry(entry, e.getCause().getMessage());
+            }
+
+            journal.markApplied(entry.getSequence());
+        }
+    }
+
+    /*
+     * SQL state classes 22 (data exception) and 23 (integrity constraint violation) mean the entry
+     * itself is bad; retrying it can never succeed.
+     */
+    private static boolean isRefusedData(DbException e) {
+        if (!(e.getCause() instanceof SQLException)) {
+            return false;
+        }
+
+        String state = ((SQLException)e.getCause()).getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    /**
+     * Stops applying and waits for a batch in progress to finish, so the journal can be closed
+     * afterwards. The applier thread is not interrupted: an interrupt would close the journal's file
+     * channels under it.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(CLOSE_WAIT.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.err.println("The journal applier did not stop within " + CLOSE_WAIT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package projects.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import projects.entity.Project;
+
+/**
+ * One write recorded in the {@link WriteJournal}. The idempotency key is unique across journals, so
+ * an entry that reaches MySQL twice, after a crash between its commit and the journal checkpoint, is
+ * applied once.
+ */
+public final class JournalEntry {
+    public enum Type {
+        ADD, MODIFY
+    }
+
+    /**
+     * What applying the entry did, as recorded with its idempotency key.
+     */
+    public enum Outcome {
+        /** The write committed. */
+        APPLIED,
+        /** A modify found the project missing or at a different row version. */
+        CONFLICT,
+        /** MySQL refused the data, for example a value out of range. */
+        REJECTED
+    }
+
+    private final long sequence;
+    private final String idempotencyKey;
+    private final Type type;
+    private final Project project;
+
+    JournalEntry(long sequence, String idempotencyKey, Type type, Project project) {
+        this.sequence = sequence;
+        this.idempotencyKey = idempotencyKey;
+        this.type = type;
+        this.project = project;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(sequence);
+            writeString(out, idempotencyKey);
+            out.writeByte(type.ordinal());
+            writeInteger(out, project.getProjectId());
+            writeString(out, project.getProjectName());
+            writeString(out, project.getEstimatedHours() == null ? null : project.getEstimatedHours().toPlainString());
+            writeString(out, project.getActualHours() == null ? null : project.getActualHours().toPlainString());
+            writeInteger(out, project.getDifficulty());
+            writeString(out, project.getNotes());
+            writeInteger(out, project.getRowVersion());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static JournalEntry decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long sequence = in.readLong();
+            String key = readString(in);
+            Type type = Type.values()[in.readByte()];
+
+            Project project = new Project();
+            project.setProjectId(readInteger(in));
+            project.setProjectName(readString(in));
+            String estimated = readString(in);
+            project.setEstimatedHours(estimated == null ? null : new BigDecimal(estimated));
+            String actual = readString(in);
+            project.setActualHours(actual == null ? null : new BigDecimal(actual));
+            project.setDifficulty(readInteger(in));
+            project.setNotes(readString(in));
+            project.setRowVersion(readInteger(in));
+
+            return new JournalEntry(sequence, key, type, project);
+        }
+    }
+
+    // Strings are written as a UTF-8 byte count and the bytes; -1 stands for null. Unlike
+    // writeUTF, this has no 64 KB limit, which long notes can exceed.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeInt(value == null ? 0 : value);
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        boolean present = in.readBoolean();
+        int value = in.readInt();
+        return present ? value : null;
+    }
+
+    @Override
+    public String toString() {
+        return idempotencyKey + " " + type + " " + project.getProjectId();
+    }
+}
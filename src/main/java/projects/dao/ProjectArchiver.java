@@ -0,0 +1,67 @@
+package projects.dao;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import projects.exception.DbException;
+
+/**
+ * Periodically moves projects matching an {@link ArchivePolicy}, with their steps, materials and
+ * category links, from the hot tables to the archive tables. Each batch is one transaction of at
+ * most {@code batchSize} projects, so the hot tables stay small without long-running moves. Reads
+ * of a single project, or of projects by ID, fall back to the archive when the hot tables miss.
+ */
+public class ProjectArchiver implements AutoCloseable {
+    private final ProjectDao projectDao;
+    private final ArchivePolicy policy;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "project-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProjectArchiver(ProjectDao projectDao, ArchivePolicy policy, int batchSize) {
+        this.projectDao = projectDao;
+        this.policy = policy;
+        this.batchSize = batchSize;
+    }
+
+    public ProjectArchiver start(Duration interval) {
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::archiveSafely, millis, millis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void archiveSafely() {
+        try {
+            archivePending();
+        } catch (DbException e) {
+            // Each batch commits on its own, so the next run continues where this one stopped
+            System.err.println("Project archiving failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archives batches until no more projects match the policy.
+     *
+     * @return The number of projects archived.
+     */
+    public int archivePending() {
+        int total = 0;
+        int archived;
+
+        do {
+            archived = projectDao.archiveProjects(policy, batchSize);
+            total += archived;
+        } while (archived == batchSize && !Thread.currentThread().isInterrupted());
+
+        return total;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package projects.dao;
+
+/**
+ * One entry of the project change log: a write to a project row, identified by the log sequence
+ * number it was recorded under.
+ */
+public class ProjectChange {
+    public enum Type {
+        INSERT("I"), UPDATE("U"), DELETE("D");
+
+        private final String code;
+
+        Type(String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public static Type fromCode(String code) {
+            for (Type type : values()) {
+                if (type.code.equals(code)) {
+                    return type;
+                }
+            }
+
+            throw new IllegalArgumentException("Unknown change type: " + code);
+        }
+    }
+
+    private final long sequence;
+    private final int projectId;
+    private final Type type;
+
+    public ProjectChange(long sequence, int projectId, Type type) {
+        this.sequence = sequence;
+        this.projectId = projectId;
+        this.type = type;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getProjectId() {
+        return projectId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectChange [sequence=" + sequence + ", projectId=" + projectId + ", type=" + type + "]";
+    }
+}
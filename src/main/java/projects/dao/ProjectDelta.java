@@ -0,0 +1,61 @@
+package projects.dao;
+
+import java.util.Collections;
+import java.util.List;
+import projects.entity.Project;
+
+/**
+ * One page of project changes after a {@link SyncWatermark}: the projects inserted or updated, with
+ * their materials, steps and categories, and the IDs of the projects deleted, both in change order.
+ */
+public final class ProjectDelta {
+    /** The largest number of changes one page can ask for. */
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<Project> changed;
+    private final List<Integer> deleted;
+    private final SyncWatermark nextWatermark;
+    private final boolean more;
+
+    ProjectDelta(List<Project> changed, List<Integer> deleted, SyncWatermark nextWatermark, boolean more) {
+        this.changed = Collections.unmodifiableList(changed);
+        this.deleted = Collections.unmodifiableList(deleted);
+        this.nextWatermark = nextWatermark;
+        this.more = more;
+    }
+
+    /**
+     * Projects inserted or updated since the watermark, each in its current state.
+     */
+    public List<Project> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Tombstones: IDs of projects deleted since the watermark.
+     */
+    public List<Integer> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * The watermark to pass to the next call.
+     */
+    public SyncWatermark getNextWatermark() {
+        return nextWatermark;
+    }
+
+    /**
+     * Whether more changes were waiting when this page was read, so the next page can be fetched at
+     * once instead of at the next sync.
+     */
+    public boolean hasMore() {
+        return more;
+    }
+
+    @Override
+    public String toString() {
+        return changed.size() + " changed, " + deleted.size() + " deleted, next " + nextWatermark
+                + (more ? ", more" : "");
+    }
+}
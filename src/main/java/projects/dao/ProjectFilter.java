@@ -0,0 +1,103 @@
+package projects.dao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A condition on the project table, as a SQL predicate with its bound parameters. Filters select the
+ * projects for queries, bulk operations and archiving; they can be combined with {@link #and}.
+ */
+public final class ProjectFilter {
+    private final String predicate;
+    private final List<Object> parameters;
+
+    private ProjectFilter(String predicate, List<Object> parameters) {
+        this.predicate = predicate;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Every project.
+     */
+    public static ProjectFilter all() {
+        return new ProjectFilter("TRUE", List.of());
+    }
+
+    /**
+     * Projects whose actual hours have reached the estimate.
+     */
+    public static ProjectFilter completed() {
+        return new ProjectFilter("actual_hours IS NOT NULL AND estimated_hours IS NOT NULL AND actual_hours >= estimated_hours",
+                List.of());
+    }
+
+    /**
+     * Projects older than the newest {@code keep} projects. Project IDs are assigned in insertion
+     * order, so this is an age cut-off by creation order.
+     */
+    public static ProjectFilter olderThanNewest(int keep) {
+        return new ProjectFilter("project_id <= (SELECT MAX(newest.project_id) FROM project newest) - ?", List.of(keep));
+    }
+
+    public static ProjectFilter difficultyAtLeast(int difficulty) {
+        return new ProjectFilter("difficulty >= ?", List.of(difficulty));
+    }
+
+    public static ProjectFilter difficultyAtMost(int difficulty) {
+        return new ProjectFilter("difficulty <= ?", List.of(difficulty));
+    }
+
+    public static ProjectFilter difficultyBetween(int min, int max) {
+        return new ProjectFilter("difficulty BETWEEN ? AND ?", List.of(min, max));
+    }
+
+    public static ProjectFilter estimatedHoursAtMost(BigDecimal hours) {
+        return new ProjectFilter("estimated_hours <= ?", List.of(hours));
+    }
+
+    /**
+     * Projects whose name starts with the prefix. A prefix match is a range on the name, so it can
+     * use the name index; LIKE wildcards in the prefix match themselves.
+     */
+    public static ProjectFilter nameStartsWith(String prefix) {
+        String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return new ProjectFilter("project_name LIKE ?", List.of(escaped + "%"));
+    }
+
+    /**
+     * Projects whose actual hours have passed the estimate. Two columns are compared, so no index
+     * helps; combine it with an indexed filter or order on large tables.
+     */
+    public static ProjectFilter overrun() {
+        return new ProjectFilter("actual_hours > estimated_hours", List.of());
+    }
+
+    /**
+     * Projects linked to the category.
+     */
+    public static ProjectFilter inCategory(int categoryId) {
+        return new ProjectFilter("project_id IN (SELECT pc.project_id FROM project_category pc WHERE pc.category_id = ?)",
+                List.of(categoryId));
+    }
+
+    public ProjectFilter and(ProjectFilter other) {
+        List<Object> combined = new ArrayList<>(parameters);
+        combined.addAll(other.parameters);
+        return new ProjectFilter("(" + predicate + ") AND (" + other.predicate + ")", combined);
+    }
+
+    String getPredicate() {
+        return predicate;
+    }
+
+    List<Object> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return predicate + " " + parameters;
+    }
+}
@@ -0,0 +1,39 @@
+package projects.dao;
+
+import java.util.Collections;
+import java.util.List;
+import projects.entity.Project;
+
+/**
+ * One page of a {@link ProjectQuery}: the projects, in query order, and the cursor of the next page.
+ */
+public final class ProjectPage {
+    private final List<Project> projects;
+    private final String nextCursor;
+
+    ProjectPage(List<Project> projects, String nextCursor) {
+        this.projects = Collections.unmodifiableList(projects);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Project> getProjects() {
+        return projects;
+    }
+
+    /**
+     * The cursor to pass to {@link ProjectQuery#after(String)} for the next page, or null if this is
+     * the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return projects.size() + " projects" + (nextCursor == null ? "" : ", next " + nextCursor);
+    }
+}
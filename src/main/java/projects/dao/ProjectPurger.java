@@ -0,0 +1,87 @@
+package projects.dao;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import projects.exception.DbException;
+
+/**
+ * Physically removes soft-deleted projects in the background. Each project's steps, materials and
+ * category links are deleted in chunks of at most {@code chunkSize} rows, each chunk in its own
+ * short transaction with a pause in between, so no single transaction holds row locks for long and
+ * other writers get in between chunks. The project row goes last.
+ */
+public class ProjectPurger implements AutoCloseable {
+    private final ProjectDao projectDao;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "project-purger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param chunkSize The most child rows deleted per transaction.
+     * @param pause The pause between two chunks.
+     */
+    public ProjectPurger(ProjectDao projectDao, int chunkSize, Duration pause) {
+        this.projectDao = projectDao;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pause.toMillis();
+    }
+
+    public ProjectPurger start(Duration interval) {
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::purgeSafely, millis, millis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void purgeSafely() {
+        try {
+            purgePending();
+        } catch (DbException e) {
+            // Whatever was not purged is still marked deleted and is picked up on the next pass
+            System.err.println("Project purge failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Purges the soft-deleted projects that are waiting, oldest first.
+     *
+     * @return The number of projects purged.
+     */
+    public int purgePending() throws InterruptedException {
+        int purged = 0;
+
+        for (Integer projectId : projectDao.fetchProjectsToPurge()) {
+            for (ProjectDao.PurgeTable table : ProjectDao.PurgeTable.values()) {
+                while (projectDao.purgeChildChunk(table, projectId, chunkSize) == chunkSize) {
+                    pause();
+                }
+
+                pause();
+            }
+
+            if (projectDao.purgeProjectRow(projectId)) {
+                purged++;
+            }
+        }
+
+        return purged;
+    }
+
+    private void pause() throws InterruptedException {
+        if (pauseMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(pauseMillis);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,181 @@
+package projects.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * A query for live projects: a filter, an order and a page size, read a page at a time with
+ * {@link ProjectDao#fetchProjects(ProjectQuery)}. Queries are immutable; each method returns a
+ * changed copy.
+ *
+ * Pages are read by keyset: a page cursor holds the sort value and project ID of the last project on
+ * its page, and the next page starts strictly after that position. A page costs the same however deep
+ * it is, and projects inserted or deleted between pages neither shift nor repeat the others.
+ */
+public final class ProjectQuery {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String NULL_VALUE = "~";
+
+    /**
+     * What each project of a page holds. A projection has the project's own columns, with the notes
+     * read for the whole page on first access, and no children. A graph has the materials, steps and
+     * categories as well.
+     */
+    public enum Shape {
+        PROJECTION, GRAPH
+    }
+
+    private final ProjectFilter filter;
+    private final ProjectSort sort;
+    private final boolean descending;
+    private final int limit;
+    private final Shape shape;
+    private final Position after;
+
+    private ProjectQuery(ProjectFilter filter, ProjectSort sort, boolean descending, int limit, Shape shape, Position after) {
+        this.filter = filter;
+        this.sort = sort;
+        this.descending = descending;
+        this.limit = limit;
+        this.shape = shape;
+        this.after = after;
+    }
+
+    /**
+     * Every live project, by name, {@link #DEFAULT_LIMIT} to a page, as projections.
+     */
+    public static ProjectQuery projects() {
+        return new ProjectQuery(ProjectFilter.all(), ProjectSort.NAME, false, DEFAULT_LIMIT, Shape.PROJECTION, null);
+    }
+
+    public ProjectQuery where(ProjectFilter filter) {
+        return new ProjectQuery(filter, sort, descending, limit, shape, after);
+    }
+
+    /**
+     * Orders the projects by the sort, ascending. Any cursor set earlier belongs to the old order and
+     * is dropped.
+     */
+    public ProjectQuery sortedBy(ProjectSort sort) {
+        return new ProjectQuery(filter, sort, false, limit, shape, null);
+    }
+
+    public ProjectQuery descending() {
+        return new ProjectQuery(filter, sort, true, limit, shape, null);
+    }
+
+    public ProjectQuery limit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("The page size must be between 1 and " + MAX_LIMIT + ": " + limit);
+        }
+
+        return new ProjectQuery(filter, sort, descending, limit, shape, after);
+    }
+
+    public ProjectQuery returning(Shape shape) {
+        return new ProjectQuery(filter, sort, descending, limit, shape, after);
+    }
+
+    /**
+     * Starts the query after the position of a cursor from {@link ProjectPage#getNextCursor()}. Set
+     * the order before the cursor.
+     *
+     * @throws IllegalArgumentException If the text is not a cursor, or is a cursor of another order.
+     */
+    public ProjectQuery after(String cursor) {
+        return new ProjectQuery(filter, sort, descending, limit, shape, decode(cursor));
+    }
+
+    ProjectFilter getFilter() {
+        return filter;
+    }
+
+    ProjectSort getSort() {
+        return sort;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * The position the page starts after, or null for the first page.
+     */
+    Position getAfter() {
+        return after;
+    }
+
+    /*
+     * The cursor is the order, the project ID and the sort value, base64url-encoded so that it can go
+     * in a URL as it is. Clients should treat it as opaque.
+     */
+    String encode(Object value, int projectId) {
+        String text = sort.name() + "," + (descending ? "D" : "A") + "," + projectId + ","
+                + (value == null ? NULL_VALUE : value.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decode(String cursor) {
+        String[] fields;
+
+        try {
+            fields = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a project cursor: " + cursor);
+        }
+
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Not a project cursor: " + cursor);
+        }
+
+        if (!fields[0].equals(sort.name()) || !fields[1].equals(descending ? "D" : "A")) {
+            throw new IllegalArgumentException("The cursor belongs to another order: " + cursor);
+        }
+
+        try {
+            Object value = sort.isNullable() && fields[3].equals(NULL_VALUE) ? null : sort.parseValue(fields[3]);
+            return new Position(value, Integer.parseInt(fields[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Not a project cursor: " + cursor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return filter + " by " + sort + (descending ? " desc" : "") + " limit " + limit + " " + shape
+                + (after == null ? "" : " after " + after);
+    }
+
+    static final class Position {
+        private final Object value;
+        private final int projectId;
+
+        private Position(Object value, int projectId) {
+            this.value = value;
+            this.projectId = projectId;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        int getProjectId() {
+            return projectId;
+        }
+
+        @Override
+        public String toString() {
+            return value + "/" + projectId;
+        }
+    }
+}
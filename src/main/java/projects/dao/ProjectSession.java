@@ -0,0 +1,114 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/**
+ * A unit of work that owns one database connection. Lazy collections loaded through a session read
+ * their rows on that connection, so they can only be initialized while the session is open; once it
+ * is closed they fail fast instead of silently opening a new connection.
+ *
+ * A session started with {@link #begin()} is also bound to the current thread until it is closed.
+ * While it is bound, every {@link ProjectDao} call on that thread runs on the session's connection
+ * instead of taking one from the pool.
+ *
+ * A session is also an identity map: each project row is materialized at most once per session, and
+ * reading it again returns the same object. Projects written through the DAO while the session is
+ * bound are evicted, so the next read sees the new row.
+ */
+public class ProjectSession implements AutoCloseable {
+    private static final ThreadLocal<ProjectSession> CURRENT = new ThreadLocal<>();
+
+    private final Map<Integer, Project> projects = new HashMap<>();
+    private Connection connection;
+    private boolean closed;
+    private boolean bound;
+
+    public static ProjectSession open() {
+        return new ProjectSession();
+    }
+
+    /**
+     * Opens a session and binds it to the current thread.
+     */
+    public static ProjectSession begin() {
+        if (CURRENT.get() != null) {
+            throw new DbException("A session is already bound to this thread.");
+        }
+
+        ProjectSession session = new ProjectSession();
+        session.bound = true;
+        CURRENT.set(session);
+        return session;
+    }
+
+    /**
+     * Returns the session bound to the current thread, or null if there is none.
+     */
+    public static ProjectSession current() {
+        return CURRENT.get();
+    }
+
+    boolean owns(Connection conn) {
+        return conn != null && conn == connection;
+    }
+
+    Project find(Integer projectId) {
+        return projects.get(projectId);
+    }
+
+    void register(Project project) {
+        projects.put(project.getProjectId(), project);
+    }
+
+    void evict(Integer projectId) {
+        projects.remove(projectId);
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Returns the session's connection, opening it on first use.
+     */
+    public Connection connection() {
+        if (closed) {
+            throw new DbException("The session is closed. Load the data inside the session or add it to the fetch plan.");
+        }
+
+        if (connection == null) {
+            connection = DbConnection.getConnection();
+        }
+
+        return connection;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        projects.clear();
+
+        if (bound) {
+            CURRENT.remove();
+        }
+
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new DbException(e);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+}
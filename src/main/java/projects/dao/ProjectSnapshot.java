@@ -0,0 +1,234 @@
+package projects.dao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, column-oriented copy of the scalar columns of the project table. Each column is held
+ * in a primitive array indexed by row, so filters and aggregates run over the arrays without
+ * creating a Project (or BigDecimal) per row. Rows are ordered by project ID.
+ */
+public final class ProjectSnapshot {
+    // Hours are DECIMAL(7,2) in the schema and are stored here as hundredths of an hour
+    public static final int HOURS_SCALE = 2;
+    public static final long NO_HOURS = Long.MIN_VALUE;
+
+    private final int[] projectIds;
+    private final int[] difficulties;
+    private final long[] estimatedHours;
+    private final long[] actualHours;
+    private final int[] nameCodes;
+    private final String[] nameDictionary;
+
+    private ProjectSnapshot(int[] projectIds, int[] difficulties, long[] estimatedHours, long[] actualHours,
+                            int[] nameCodes, String[] nameDictionary) {
+        this.projectIds = projectIds;
+        this.difficulties = difficulties;
+        this.estimatedHours = estimatedHours;
+        this.actualHours = actualHours;
+        this.nameCodes = nameCodes;
+        this.nameDictionary = nameDictionary;
+    }
+
+    public int size() {
+        return projectIds.length;
+    }
+
+    public int projectId(int row) {
+        return projectIds[row];
+    }
+
+    public int difficulty(int row) {
+        return difficulties[row];
+    }
+
+    public long estimatedHours(int row) {
+        return estimatedHours[row];
+    }
+
+    public long actualHours(int row) {
+        return actualHours[row];
+    }
+
+    public String projectName(int row) {
+        return nameDictionary[nameCodes[row]];
+    }
+
+    public int distinctNames() {
+        return nameDictionary.length;
+    }
+
+    /**
+     * Returns the row holding the given project, or a negative value if the project is not in the
+     * snapshot.
+     */
+    public int rowOf(int projectId) {
+        return Arrays.binarySearch(projectIds, projectId);
+    }
+
+    public static BigDecimal toHours(long scaledHours) {
+        return scaledHours == NO_HOURS ? null : BigDecimal.valueOf(scaledHours, HOURS_SCALE);
+    }
+
+    public static long toScaledHours(BigDecimal hours) {
+        return hours == null ? NO_HOURS : hours.setScale(HOURS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // Row filters. These are evaluated against the column arrays by row index.
+
+    public IntPredicate all() {
+        return row -> true;
+    }
+
+    public IntPredicate difficultyBetween(int min, int max) {
+        return row -> difficulties[row] >= min && difficulties[row] <= max;
+    }
+
+    public IntPredicate overrun() {
+        return row -> estimatedHours[row] != NO_HOURS && actualHours[row] != NO_HOURS
+                && actualHours[row] > estimatedHours[row];
+    }
+
+    public IntPredicate nameEquals(String projectName) {
+        // Resolve the dictionary code once so the per-row check is an int comparison
+        int code = Arrays.asList(nameDictionary).indexOf(projectName);
+        return code < 0 ? row -> false : row -> nameCodes[row] == code;
+    }
+
+    // Aggregates
+
+    public int count(IntPredicate filter) {
+        return (int)rows(filter).count();
+    }
+
+    public int[] projectIds(IntPredicate filter) {
+        return rows(filter).map(row -> projectIds[row]).toArray();
+    }
+
+    public long sumEstimatedHours(IntPredicate filter) {
+        return rows(filter).filter(row -> estimatedHours[row] != NO_HOURS).mapToLong(row -> estimatedHours[row]).sum();
+    }
+
+    public long sumActualHours(IntPredicate filter) {
+        return rows(filter).filter(row -> actualHours[row] != NO_HOURS).mapToLong(row -> actualHours[row]).sum();
+    }
+
+    public long sumOverrunHours(IntPredicate filter) {
+        return rows(filter.and(overrun())).mapToLong(row -> actualHours[row] - estimatedHours[row]).sum();
+    }
+
+    public OptionalDouble averageDifficulty(IntPredicate filter) {
+        return rows(filter).map(row -> difficulties[row]).average();
+    }
+
+    private IntStream rows(IntPredicate filter) {
+        return IntStream.range(0, projectIds.length).parallel().filter(filter);
+    }
+
+    /**
+     * Returns a new snapshot with the given rows applied. Rows in {@code changed} replace (or add)
+     * rows with the same project ID, and rows whose IDs are in {@code removedIds} are dropped. This
+     * snapshot is left untouched.
+     */
+    public ProjectSnapshot withChanges(ProjectSnapshot changed, Collection<Integer> removedIds) {
+        int[] removed = removedIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+        Builder builder = new Builder(size() + changed.size());
+        int base = 0;
+        int delta = 0;
+
+        while (base < size() || delta < changed.size()) {
+            int baseId = base < size() ? projectIds[base] : Integer.MAX_VALUE;
+            int deltaId = delta < changed.size() ? changed.projectIds[delta] : Integer.MAX_VALUE;
+
+            if (deltaId <= baseId) {
+                builder.copyRow(changed, delta++);
+
+                if (deltaId == baseId) {
+                    base++;
+                }
+            } else {
+                if (Arrays.binarySearch(removed, baseId) < 0) {
+                    builder.copyRow(this, base);
+                }
+                base++;
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Accumulates rows in ascending project ID order and encodes project names into a dictionary.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] projectIds;
+        private int[] difficulties;
+        private long[] estimatedHours;
+        private long[] actualHours;
+        private int[] nameCodes;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 16);
+            projectIds = new int[capacity];
+            difficulties = new int[capacity];
+            estimatedHours = new long[capacity];
+            actualHours = new long[capacity];
+            nameCodes = new int[capacity];
+        }
+
+        public Builder add(int projectId, String projectName, long estimatedHours, long actualHours, int difficulty) {
+            if (size > 0 && projectIds[size - 1] >= projectId) {
+                throw new IllegalArgumentException("Rows must be added in ascending project ID order. Got "
+                        + projectId + " after " + projectIds[size - 1]);
+            }
+
+            if (size == projectIds.length) {
+                grow();
+            }
+
+            this.projectIds[size] = projectId;
+            this.difficulties[size] = difficulty;
+            this.estimatedHours[size] = estimatedHours;
+            this.actualHours[size] = actualHours;
+            this.nameCodes[size] = dictionary.computeIfAbsent(projectName, name -> dictionary.size());
+            size++;
+            return this;
+        }
+
+        private void copyRow(ProjectSnapshot from, int row) {
+            add(from.projectIds[row], from.projectName(row), from.estimatedHours[row], from.actualHours[row],
+                    from.difficulties[row]);
+        }
+
+        private void grow() {
+            int capacity = projectIds.length * 2;
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            difficulties = Arrays.copyOf(difficulties, capacity);
+            estimatedHours = Arrays.copyOf(estimatedHours, capacity);
+            actualHours = Arrays.copyOf(actualHours, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+        }
+
+        public ProjectSnapshot build() {
+            String[] names = new String[dictionary.size()];
+            dictionary.forEach((name, code) -> names[code] = name);
+
+            return new ProjectSnapshot(Arrays.copyOf(projectIds, size), Arrays.copyOf(difficulties, size),
+                    Arrays.copyOf(estimatedHours, size), Arrays.copyOf(actualHours, size),
+                    Arrays.copyOf(nameCodes, size), names);
+        }
+    }
+}
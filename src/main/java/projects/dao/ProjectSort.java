@@ -0,0 +1,51 @@
+package projects.dao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * The orders a {@link ProjectQuery} can return projects in. Ties are broken by project ID, so every
+ * order is total and a page cursor names an exact position. Each order except {@link #UPDATED} is
+ * served by an index on (deleted_at, column, project_id), so a page reads no more rows than it
+ * returns; UPDATED uses the delta sync index on (updated_at, project_id).
+ */
+public enum ProjectSort {
+    NAME("project_name", false, String.class, text -> text),
+    DIFFICULTY("difficulty", true, Integer.class, Integer::valueOf),
+    ESTIMATED_HOURS("estimated_hours", true, BigDecimal.class, BigDecimal::new),
+    UPDATED("updated_at", false, LocalDateTime.class, LocalDateTime::parse),
+    ID("project_id", false, Integer.class, Integer::valueOf);
+
+    private final String column;
+    private final boolean nullable;
+    private final Class<?> valueType;
+    private final Function<String, Object> parser;
+
+    ProjectSort(String column, boolean nullable, Class<?> valueType, Function<String, Object> parser) {
+        this.column = column;
+        this.nullable = nullable;
+        this.valueType = valueType;
+        this.parser = parser;
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * Whether the column can be null. MySQL sorts nulls first, so they come first in ascending
+     * order and last in descending order.
+     */
+    boolean isNullable() {
+        return nullable;
+    }
+
+    Class<?> getValueType() {
+        return valueType;
+    }
+
+    Object parseValue(String text) {
+        return parser.apply(text);
+    }
+}
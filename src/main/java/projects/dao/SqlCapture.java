@@ -0,0 +1,106 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Records each distinct shape of SQL prepared on connections from {@link DbConnection}, together with
+ * the parameter values of its first execution, so that the plans of every query the application runs
+ * can be checked. Shapes are the SQL with whitespace collapsed and IN-lists of placeholders reduced
+ * to one, so chunked queries with different chunk sizes count as one shape.
+ *
+ * Capturing is off unless {@link #enable()} has been called; while it is off, statements are not
+ * wrapped and nothing is recorded.
+ */
+public final class SqlCapture {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private static volatile boolean enabled;
+    private static final Map<String, CapturedStatement> statements = new ConcurrentHashMap<>();
+
+    private SqlCapture() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The captured statements, by shape, in shape order.
+     */
+    public static Map<String, CapturedStatement> captured() {
+        return Collections.unmodifiableMap(new TreeMap<>(statements));
+    }
+
+    public static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        return PLACEHOLDER_LIST.matcher(shape).replaceAll("(?)");
+    }
+
+    /*
+     * Wraps a statement so that the parameters set on it are recorded when it is first executed.
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sql) {
+        String shape = shapeOf(sql);
+
+        if (statements.containsKey(shape)) {
+            return statement;
+        }
+
+        Map<Integer, Object> parameters = new TreeMap<>();
+
+        return (PreparedStatement)Proxy.newProxyInstance(SqlCapture.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    String name = method.getName();
+
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer)args[0], name.equals("setNull") ? null : args[1]);
+                    } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                        statements.putIfAbsent(shape, new CapturedStatement(sql, new ArrayList<>(parameters.values())));
+                    }
+
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * A statement as it was first executed.
+     */
+    public static final class CapturedStatement {
+        private final String sql;
+        private final List<Object> parameters;
+
+        private CapturedStatement(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = Collections.unmodifiableList(parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return The parameter values in placeholder order; null for parameters set to NULL.
+         */
+        public List<Object> getParameters() {
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package projects.dao;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A position in the order of project changes: the change time and project ID of the last change a
+ * client has received. Changes are ordered by time, then by project ID, so changes made in the same
+ * microsecond are neither lost nor repeated across pages. The string form, from
+ * {@link #toString()}, is what clients store between syncs.
+ */
+public final class SyncWatermark {
+    /** Before every change; a client starting from here receives every project. */
+    public static final SyncWatermark INITIAL = new SyncWatermark(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+    private final LocalDateTime changedAt;
+    private final int projectId;
+
+    public SyncWatermark(LocalDateTime changedAt, int projectId) {
+        this.changedAt = changedAt;
+        this.projectId = projectId;
+    }
+
+    /**
+     * Reads a watermark written by {@link #toString()}.
+     *
+     * @throws IllegalArgumentException If the text is not a watermark.
+     */
+    public static SyncWatermark parse(String text) {
+        int separator = text.lastIndexOf('/');
+
+        try {
+            return new SyncWatermark(LocalDateTime.parse(text.substring(0, Math.max(separator, 0))),
+                    Integer.parseInt(text.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Not a sync watermark: " + text);
+        }
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public int getProjectId() {
+        return projectId;
+    }
+
+    boolean isBefore(LocalDateTime time) {
+        return changedAt.isBefore(time);
+    }
+
+    @Override
+    public String toString() {
+        return changedAt + "/" + projectId;
+    }
+}
@@ -0,0 +1,215 @@
+package projects.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import projects.exception.DbException;
+
+/**
+ * Compresses large text values with Deflate and a preset dictionary. A value is compressed when its
+ * UTF-8 form is at least the threshold; smaller values are stored as plain text.
+ *
+ * Compressed values are zlib streams, whose header names the dictionary by its Adler-32 checksum.
+ * New values are compressed with the active dictionary, but a value compressed with any earlier
+ * dictionary can still be read: unknown dictionaries are fetched by checksum through the dictionary
+ * source and kept.
+ */
+public final class TextCodec {
+    /** The largest useful dictionary: Deflate only looks back 32 KB. */
+    public static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    private final int threshold;
+    private final byte[] activeDictionary;
+    private final LongFunction<byte[]> dictionarySource;
+    private final Map<Long, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    /**
+     * @param threshold The smallest value, in UTF-8 bytes, that is compressed; zero or less turns
+     *        compression off for writes.
+     * @param activeDictionary The dictionary for new values, or null to compress without one.
+     * @param dictionarySource Returns the dictionary with the given Adler-32 checksum, or null.
+     */
+    public TextCodec(int threshold, byte[] activeDictionary, LongFunction<byte[]> dictionarySource) {
+        this.threshold = threshold;
+        this.activeDictionary = activeDictionary;
+        this.dictionarySource = dictionarySource;
+
+        if (activeDictionary != null) {
+            dictionaries.put(checksum(activeDictionary), activeDictionary);
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public boolean shouldCompress(String value) {
+        // A char is at least one UTF-8 byte, so most short values are ruled out without encoding
+        return value != null && threshold > 0 && (value.length() >= threshold || utf8Length(value) >= threshold);
+    }
+
+    /**
+     * @return The value to store in the plain text column: null if the value is compressed.
+     */
+    public String plainPart(String value) {
+        return shouldCompress(value) ? null : value;
+    }
+
+    /**
+     * @return The value to store in the compressed column: null unless the value is compressed.
+     */
+    public byte[] compressedPart(String value) {
+        return shouldCompress(value) ? compress(value) : null;
+    }
+
+    public byte[] compress(String value) {
+        byte[] input = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+
+        if (activeDictionary != null) {
+            deflater.setDictionary(activeDictionary);
+        }
+
+        deflater.setInput(input);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+        byte[] buffer = new byte[8192];
+
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+
+        return out.toByteArray();
+    }
+
+    public String decompress(byte[] compressed) {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(compressed);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+        byte[] buffer = new byte[8192];
+
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        // getAdler() returns the unsigned checksum as a signed int
+                        inflater.setDictionary(dictionary(inflater.getAdler() & 0xFFFFFFFFL));
+                    } else if (inflater.needsInput()) {
+                        throw new DbException("Compressed text is truncated.");
+                    }
+                }
+
+                out.write(buffer, 0, count);
+            }
+        } catch (DataFormatException e) {
+            throw new DbException("Compressed text is corrupt.", e);
+        }
+
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] dictionary(long checksum) {
+        byte[] dictionary = dictionaries.computeIfAbsent(checksum, dictionarySource::apply);
+
+        if (dictionary == null) {
+            throw new DbException("Compressed text needs dictionary " + checksum + ", which does not exist.");
+        }
+
+        return dictionary;
+    }
+
+    public static long checksum(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return adler.getValue();
+    }
+
+    /**
+     * Builds a dictionary from sample values. Words and word pairs are scored by how many bytes
+     * they would save (length times occurrences), and the best are concatenated with the most
+     * valuable last, since Deflate encodes nearer matches more cheaply.
+     */
+    public static byte[] train(Collection<String> samples, int maxBytes) {
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (String sample : samples) {
+            String[] words = sample.split("\\s+");
+
+            for (int i = 0; i < words.length; i++) {
+                counts.merge(words[i] + " ", 1, Integer::sum);
+
+                if (i + 1 < words.length) {
+                    counts.merge(words[i] + " " + words[i + 1] + " ", 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Entry<String, Integer>> scored = new ArrayList<>(counts.entrySet());
+        scored.removeIf(entry -> entry.getValue() < 2);
+        scored.sort((a, b) -> Long.compare((long)b.getKey().length() * b.getValue(), (long)a.getKey().length() * a.getValue()));
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        int limit = Math.min(maxBytes, MAX_DICTIONARY_BYTES);
+
+        for (Entry<String, Integer> entry : scored) {
+            byte[] bytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+
+            if (size + bytes.length > limit) {
+                continue;
+            }
+
+            chosen.add(bytes);
+            size += bytes.length;
+        }
+
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.writeBytes(chosen.get(i));
+        }
+
+        return dictionary.toByteArray();
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+
+            if (ch < 0x80) {
+                length++;
+            } else if (ch < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(ch)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,95 @@
+package projects.dao;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import projects.exception.DbException;
+
+/**
+ * Compresses the existing notes and step text while the application keeps running. The compressed
+ * columns are added if they are missing, a new dictionary is trained on the current data, and then each table is walked in primary key order, {@code chunkSize} rows per short
+ * transaction with a pause in between. Rows written meanwhile are compressed by the DAO itself, and
+ * a row changed between the read and the rewrite of its chunk is left for the DAO's next write.
+ *
+ * <pre>
+ * java -Dprojects.textCompressionThreshold=1024 projects.dao.TextCompressionMigrator [chunk size] [pause in ms]
+ * </pre>
+ */
+public class TextCompressionMigrator {
+    private static final int DICTIONARY_SAMPLES = 2000;
+    private static final int MAX_CONSECUTIVE_FAILURES = 5;
+
+    private final ProjectDao projectDao;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    public TextCompressionMigrator(ProjectDao projectDao, int chunkSize, Duration pause) {
+        this.projectDao = projectDao;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pause.toMillis();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int chunkSize = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long pauseMillis = args.length > 1 ? Long.parseLong(args[1]) : 50;
+
+        new TextCompressionMigrator(new ProjectDao(), chunkSize, Duration.ofMillis(pauseMillis)).migrate();
+        DbConnection.shutdown();
+    }
+
+    /**
+     * @return The number of chunks processed.
+     */
+    public long migrate() throws InterruptedException {
+        projectDao.ensureCompressedTextColumns();
+
+        if (!ProjectDao.isTextCompressionOn()) {
+            System.out.println("Added the compressed text columns; set projects.textCompressionThreshold to compress.");
+            return 0;
+        }
+
+        Long checksum = projectDao.trainTextDictionary(DICTIONARY_SAMPLES);
+        System.out.println(checksum == null ? "Too little text to train a dictionary; compressing without one."
+                : "Trained text dictionary " + checksum + ".");
+
+        long chunks = 0;
+
+        for (ProjectDao.TextColumn column : ProjectDao.TextColumn.values()) {
+            int lastId = 0;
+            int failures = 0;
+
+            while (true) {
+                int nextId;
+
+                try {
+                    nextId = projectDao.compressTextChunk(column, lastId, chunkSize);
+                } catch (DbException e) {
+                    if (++failures >= MAX_CONSECUTIVE_FAILURES) {
+                        throw e;
+                    }
+
+                    // The chunk was rolled back; the walk resumes from the same ID
+                    System.err.println("Compressing " + column.getTableName() + " after ID " + lastId + " failed: "
+                            + e.getMessage());
+                    TimeUnit.MILLISECONDS.sleep(Math.max(pauseMillis, 1000));
+                    continue;
+                }
+
+                if (nextId < 0) {
+                    break;
+                }
+
+                chunks++;
+                failures = 0;
+                lastId = nextId;
+
+                if (pauseMillis > 0) {
+                    TimeUnit.MILLISECONDS.sleep(pauseMillis);
+                }
+            }
+
+            System.out.println("Compressed " + column.getTableName() + " up to ID " + lastId + ".");
+        }
+
+        return chunks;
+    }
+}
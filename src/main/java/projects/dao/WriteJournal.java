@@ -0,0 +1,398 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import projects.entity.Project;
+
+/**
+ * A local, append-only journal of project writes that have been acknowledged but not yet applied
+ * to MySQL. Records go to memory-mapped segment files; each record is its payload length, the CRC32
+ * of the payload and the payload, and {@link #append} forces the record to disk before it returns.
+ * A record torn by a crash fails its checksum and marks the end of the journal when it is reopened.
+ *
+ * The journal keeps a checkpoint: the sequence of the last entry known to be applied. Entries after
+ * the checkpoint are returned by {@link #readPending(int)} in append order, including after a
+ * restart, and segments whose entries are all applied are deleted.
+ */
+public class WriteJournal implements AutoCloseable {
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final String ID_FILE = "journal.id";
+    private static final String CHECKPOINT_FILE = "journal.checkpoint";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final String journalId;
+    private final FileChannel checkpoint;
+
+    // Segments by the sequence of their first entry; the last one takes appends
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private long lastSequence;
+    private long appliedSequence;
+    private boolean closed;
+
+    // The first entry that may not be applied yet
+    private long readSegment;
+    private int readPosition;
+
+    private WriteJournal(Path directory, long segmentSize, String journalId, FileChannel checkpoint) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.journalId = journalId;
+        this.checkpoint = checkpoint;
+    }
+
+    public static WriteJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed, and recovers the entries written
+     * before the last shutdown or crash.
+     */
+    public static WriteJournal open(Path directory, long segmentSize) throws IOException {
+        Files.createDirectories(directory);
+
+        Path idFile = directory.resolve(ID_FILE);
+
+        if (!Files.exists(idFile)) {
+            // Part of every idempotency key, so a fresh journal never reuses the keys of an old one
+            Files.writeString(idFile, UUID.randomUUID().toString(), StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        }
+
+        FileChannel checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        WriteJournal journal = new WriteJournal(directory, segmentSize,
+                Files.readString(idFile, StandardCharsets.US_ASCII).strip(), checkpoint);
+
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        ByteBuffer applied = ByteBuffer.allocate(Long.BYTES);
+
+        if (checkpoint.read(applied, 0) == Long.BYTES) {
+            appliedSequence = applied.flip().getLong();
+        }
+
+        lastSequence = appliedSequence;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long first = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(first, Segment.open(file, first, segmentSize));
+            }
+        }
+
+        for (Segment segment : segments.values()) {
+            segment.scan();
+            lastSequence = Math.max(lastSequence, segment.lastSequence);
+        }
+
+        if (segments.isEmpty()) {
+            roll(lastSequence + 1);
+        }
+
+        readSegment = segments.firstKey();
+        readPosition = 0;
+        deleteAppliedSegments();
+    }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * Appends a write and forces it to disk.
+     *
+     * @return The entry, with its sequence and idempotency key.
+     */
+    public synchronized JournalEntry append(JournalEntry.Type type, Project project) throws IOException {
+        ensureOpen();
+        long sequence = lastSequence + 1;
+        JournalEntry entry = new JournalEntry(sequence, journalId + ":" + sequence, type, project);
+        byte[] payload = entry.encode();
+        int recordSize = HEADER_BYTES + payload.length;
+
+        // Room is kept for an empty header after the last record, which marks the end of the segment
+        if (recordSize + HEADER_BYTES > segmentSize) {
+            throw new IllegalArgumentException("A journal record of " + recordSize + " bytes does not fit in a segment");
+        }
+
+        Segment tail = segments.lastEntry().getValue();
+
+        if (tail.end + recordSize + HEADER_BYTES > segmentSize) {
+            tail = roll(sequence);
+        }
+
+        tail.write(payload, sequence);
+        lastSequence = sequence;
+        return entry;
+    }
+
+    /**
+     * Returns at most {@code max} entries after the checkpoint, oldest first, without moving the
+     * checkpoint. The same entries are returned again until {@link #markApplied(long)} passes them.
+     */
+    public synchronized List<JournalEntry> readPending(int max) throws IOException {
+        ensureOpen();
+        List<JournalEntry> entries = new ArrayList<>();
+        long segmentKey = readSegment;
+        int position = readPosition;
+
+        while (entries.size() < max) {
+            Segment segment = segments.get(segmentKey);
+
+            if (position >= segment.end) {
+                Long next = segments.higherKey(segmentKey);
+
+                if (next == null) {
+                    break;
+                }
+
+                segmentKey = next;
+                position = 0;
+                continue;
+            }
+
+            byte[] payload = segment.payloadAt(position);
+            position += HEADER_BYTES + payload.length;
+            JournalEntry entry = JournalEntry.decode(payload);
+
+            if (entry.getSequence() > appliedSequence) {
+                entries.add(entry);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Moves the checkpoint to the sequence, forces it to disk and deletes the segments that hold
+     * only applied entries. Call it once the entries up to the sequence have committed in MySQL.
+     */
+    public synchronized void markApplied(long sequence) throws IOException {
+        ensureOpen();
+
+        if (sequence <= appliedSequence) {
+            return;
+        }
+
+        checkpoint.write(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence), 0);
+        checkpoint.force(false);
+        appliedSequence = sequence;
+
+        // Skip the read position past the applied entries
+        while (true) {
+            Segment segment = segments.get(readSegment);
+
+            if (readPosition >= segment.end) {
+                Long next = segments.higherKey(readSegment);
+
+                if (next == null) {
+                    break;
+                }
+
+                readSegment = next;
+                readPosition = 0;
+            } else if (segment.sequenceAt(readPosition) <= sequence) {
+                readPosition += HEADER_BYTES + segment.lengthAt(readPosition);
+            } else {
+                break;
+            }
+        }
+
+        deleteAppliedSegments();
+    }
+
+    /**
+     * The number of entries appended but not yet applied.
+     */
+    public synchronized long getPendingCount() {
+        return lastSequence - appliedSequence;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The write journal is closed.");
+        }
+    }
+
+    private void deleteAppliedSegments() throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Segment> first = segments.firstEntry();
+
+            if (first.getKey() == readSegment || first.getValue().lastSequence > appliedSequence) {
+                break;
+            }
+
+            segments.pollFirstEntry();
+            first.getValue().close();
+
+            try {
+                Files.deleteIfExists(first.getValue().file);
+            } catch (IOException e) {
+                // Some platforms refuse to delete a file that is still mapped; it goes on the next open
+            }
+        }
+    }
+
+    private Segment roll(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        Segment segment = Segment.open(file, firstSequence, segmentSize);
+        segments.put(firstSequence, segment);
+        forceDirectory();
+        return segment;
+    }
+
+    // Makes the new segment's directory entry durable. Not every platform can open a directory.
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // The segment's contents are still forced on every append
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+
+        segments.clear();
+        checkpoint.close();
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final long firstSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int end;
+        private long lastSequence;
+
+        private Segment(Path file, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+
+        static Segment open(Path file, long firstSequence, long size) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+
+            try {
+                // Mapping past the end grows the file; the new bytes read as zero, an empty header
+                return new Segment(file, firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /*
+         * Finds the end of the valid records. A record with a bad length or checksum was torn by a
+         * crash; it and anything after it are zeroed so that later appends leave no stale bytes.
+         */
+        void scan() {
+            int position = 0;
+
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+
+                if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()
+                        || buffer.getInt(position + Integer.BYTES) != checksum(buffer, position + HEADER_BYTES, length)) {
+                    break;
+                }
+
+                lastSequence = buffer.getLong(position + HEADER_BYTES);
+                position += HEADER_BYTES + length;
+            }
+
+            end = position;
+
+            for (int i = end; i < buffer.capacity(); i++) {
+                if (buffer.get(i) != 0) {
+                    for (int j = i; j < buffer.capacity(); j++) {
+                        buffer.put(j, (byte)0);
+                    }
+
+                    buffer.force();
+                    break;
+                }
+            }
+        }
+
+        void write(byte[] payload, long sequence) {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            buffer.put(end + HEADER_BYTES, payload);
+            buffer.putInt(end + Integer.BYTES, (int)crc.getValue());
+            buffer.putInt(end, payload.length);
+            buffer.force(end, HEADER_BYTES + payload.length);
+
+            end += HEADER_BYTES + payload.length;
+            lastSequence = sequence;
+        }
+
+        int lengthAt(int position) {
+            return buffer.getInt(position);
+        }
+
+        long sequenceAt(int position) {
+            return buffer.getLong(position + HEADER_BYTES);
+        }
+
+        byte[] payloadAt(int position) {
+            byte[] payload = new byte[lengthAt(position)];
+            buffer.get(position + HEADER_BYTES, payload);
+            return payload;
+        }
+
+        private static int checksum(MappedByteBuffer buffer, int position, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(position, length));
+            return (int)crc.getValue();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        @Override
+        public String toString() {
+            return file + " from " + firstSequence;
+        }
+    }
+}
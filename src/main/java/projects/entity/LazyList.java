@@ -0,0 +1,63 @@
+package projects.entity;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A child collection that is read from the database the first time it is used. Reads and writes
+ * both trigger the load; after that the list behaves like an ordinary {@link ArrayList}. Whether the
+ * loader can still reach the database (for example, whether its session is open) is up to the
+ * loader, which is expected to fail fast if it cannot.
+ */
+public class LazyList<E> extends AbstractList<E> {
+    private final Supplier<List<E>> loader;
+    private List<E> elements;
+
+    public LazyList(Supplier<List<E>> loader) {
+        this.loader = loader;
+    }
+
+    public boolean isLoaded() {
+        return elements != null;
+    }
+
+    private List<E> elements() {
+        if (elements == null) {
+            elements = new ArrayList<>(loader.get());
+        }
+
+        return elements;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements().get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements().size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return elements().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements().add(index, element);
+    }
+
+    @Override
+    public E remove(int index) {
+        return elements().remove(index);
+    }
+
+    @Override
+    public String toString() {
+        return isLoaded() ? elements.toString() : "(not loaded)";
+    }
+}
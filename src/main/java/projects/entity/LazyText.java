@@ -0,0 +1,56 @@
+package projects.entity;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds a large text column value that may not have been read yet. A deferred value is fetched by
+ * its loader on first access; a loader may also resolve a whole page of values at once by calling
+ * {@link #resolve(String)} on each of them. Like the entities that use it, this class is not
+ * thread-safe: two threads reading the same unloaded value may both run the loader.
+ */
+public final class LazyText {
+    private final Supplier<String> loader;
+    private volatile String value;
+    private volatile boolean loaded;
+
+    private LazyText(String value, Supplier<String> loader, boolean loaded) {
+        this.value = value;
+        this.loader = loader;
+        this.loaded = loaded;
+    }
+
+    public static LazyText of(String value) {
+        return new LazyText(value, null, true);
+    }
+
+    public static LazyText deferred(Supplier<String> loader) {
+        return new LazyText(null, loader, false);
+    }
+
+    public String get() {
+        if (!loaded) {
+            String loadedValue = loader.get();
+
+            // The loader may have resolved this value as part of a batch
+            if (!loaded) {
+                resolve(loadedValue);
+            }
+        }
+
+        return value;
+    }
+
+    public void resolve(String value) {
+        this.value = value;
+        this.loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public String toString() {
+        return loaded ? String.valueOf(value) : "(not loaded)";
+    }
+}
@@ -0,0 +1,56 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+
+public class Material {
+    private Integer materialId;
+    private Integer projectId;
+    private String name;
+    private Integer numRequired;
+    private BigDecimal cost;
+
+    public Integer getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(Integer materialId) {
+        this.materialId = materialId;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Integer projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getNumRequired() {
+        return numRequired;
+    }
+
+    public void setNumRequired(Integer numRequired) {
+        this.numRequired = numRequired;
+    }
+
+    public BigDecimal getCost() {
+        return cost;
+    }
+
+    public void setCost(BigDecimal cost) {
+        this.cost = cost;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,137 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class Project {
+    private Integer projectId;
+    private String projectName;
+    private BigDecimal estimatedHours;
+    private BigDecimal actualHours;
+    private Integer difficulty;
+    private LazyText notes = LazyText.of(null);
+    private Integer rowVersion;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    private List<Material> materials = new ArrayList<>();
+    private List<Step> steps = new ArrayList<>();
+    private List<Category> categories = new ArrayList<>();
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Integer projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public BigDecimal getEstimatedHours() {
+        return estimatedHours;
+    }
+
+    public void setEstimatedHours(BigDecimal estimatedHours) {
+        this.estimatedHours = estimatedHours;
+    }
+
+    public BigDecimal getActualHours() {
+        return actualHours;
+    }
+
+    public void setActualHours(BigDecimal actualHours) {
+        this.actualHours = actualHours;
+    }
+
+    public Integer getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(Integer difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    // Notes is a TEXT column, so it may be read on first access instead of with the row
+    public String getNotes() {
+        return notes.get();
+    }
+
+    public void setNotes(String notes) {
+        this.notes = LazyText.of(notes);
+    }
+
+    public void deferNotes(Supplier<String> loader) {
+        this.notes = LazyText.deferred(loader);
+    }
+
+    public LazyText getLazyNotes() {
+        return notes;
+    }
+
+    // Incremented on every update; used for ETags and optimistic locking
+    public Integer getRowVersion() {
+        return rowVersion;
+    }
+
+    public void setRowVersion(Integer rowVersion) {
+        this.rowVersion = rowVersion;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // Set by the database on every write to the project or its children; drives delta sync
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public List<Material> getMaterials() {
+        return materials;
+    }
+
+    public void setMaterials(List<Material> materials) {
+        this.materials = materials;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<Category> categories) {
+        this.categories = categories;
+    }
+
+    @Override
+    public String toString() {
+        return "Project [ID=" + projectId + ", name=" + projectName + ", estimated hours=" + estimatedHours
+                + ", actual hours=" + actualHours + ", difficulty=" + difficulty + ", notes=" + notes
+                + ", materials=" + materials + ", steps=" + steps + ", categories=" + categories + "]";
+    }
+}
@@ -0,0 +1,56 @@
+package projects.entity;
+
+import java.util.function.Supplier;
+
+public class Step {
+    private Integer stepId;
+    private Integer projectId;
+    private LazyText stepText = LazyText.of(null);
+    private Integer stepOrder;
+
+    public Integer getStepId() {
+        return stepId;
+    }
+
+    public void setStepId(Integer stepId) {
+        this.stepId = stepId;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Integer projectId) {
+        this.projectId = projectId;
+    }
+
+    // Step text is a TEXT column, so it may be read on first access instead of with the row
+    public String getStepText() {
+        return stepText.get();
+    }
+
+    public void setStepText(String stepText) {
+        this.stepText = LazyText.of(stepText);
+    }
+
+    public void deferStepText(Supplier<String> loader) {
+        this.stepText = LazyText.deferred(loader);
+    }
+
+    public LazyText getLazyStepText() {
+        return stepText;
+    }
+
+    public Integer getStepOrder() {
+        return stepOrder;
+    }
+
+    public void setStepOrder(Integer stepOrder) {
+        this.stepOrder = stepOrder;
+    }
+
+    @Override
+    public String toString() {
+        return stepOrder + ": " + stepText;
+    }
+}
@@ -0,0 +1,18 @@
+package projects.exception;
+
+/**
+ * Thrown when an operation runs past its deadline: it waited too long for a connection, or a
+ * statement was cancelled on the server because the time left ran out.
+ */
+public class DeadlineExceededException extends DbException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
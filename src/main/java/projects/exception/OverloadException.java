@@ -0,0 +1,14 @@
+package projects.exception;
+
+/**
+ * Thrown instead of waiting for a database connection when the database is overloaded: the wait
+ * queue is full, or the caller waited longer than its deadline.
+ */
+public class OverloadException extends DbException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OverloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,200 @@
+package projects.http;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses JSON objects, such as the request bodies of the HTTP API and MySQL's EXPLAIN output. Numbers
+ * are returned as {@link BigDecimal}, nested objects as maps and arrays as lists.
+ */
+public class JsonReader {
+    private final String text;
+    private int pos;
+
+    private JsonReader(String text) {
+        this.text = text;
+    }
+
+    public static Map<String, Object> parseObject(String text) {
+        JsonReader reader = new JsonReader(text);
+        Map<String, Object> members = reader.readObject();
+        reader.skipWhitespace();
+
+        if (reader.pos != text.length()) {
+            throw reader.error("Unexpected content after the object");
+        }
+
+        return members;
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> members = new LinkedHashMap<>();
+        expect('{');
+        skipWhitespace();
+
+        if (peek() == '}') {
+            pos++;
+            return members;
+        }
+
+        do {
+            skipWhitespace();
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            members.put(name, readValue());
+            skipWhitespace();
+        } while (consume(','));
+
+        expect('}');
+        return members;
+    }
+
+    private Object readValue() {
+        char ch = peek();
+
+        if (ch == '"') {
+            return readString();
+        }
+
+        if (ch == '{') {
+            return readObject();
+        }
+
+        if (ch == '[') {
+            return readArray();
+        }
+
+        if (text.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+
+        if (text.startsWith("true", pos)) {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+
+        if (text.startsWith("false", pos)) {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+
+        int start = pos;
+
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+
+        if (start == pos) {
+            throw error("Expected a value");
+        }
+
+        return new BigDecimal(text.substring(start, pos));
+    }
+
+    private List<Object> readArray() {
+        List<Object> elements = new ArrayList<>();
+        expect('[');
+        skipWhitespace();
+
+        if (peek() == ']') {
+            pos++;
+            return elements;
+        }
+
+        do {
+            skipWhitespace();
+            elements.add(readValue());
+            skipWhitespace();
+        } while (consume(','));
+
+        expect(']');
+        return elements;
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+
+        while (true) {
+            if (pos >= text.length()) {
+                throw error("Unterminated string");
+            }
+
+            char ch = text.charAt(pos++);
+
+            if (ch == '"') {
+                return value.toString();
+            }
+
+            if (ch != '\\') {
+                value.append(ch);
+                continue;
+            }
+
+            char escaped = text.charAt(pos++);
+
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    value.append((char)Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+
+        return text.charAt(pos);
+    }
+
+    private boolean consume(char ch) {
+        if (pos < text.length() && text.charAt(pos) == ch) {
+            pos++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(char ch) {
+        if (!consume(ch)) {
+            throw error("Expected '" + ch + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,544 @@
+package projects.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import projects.dao.JournalEntry;
+import projects.dao.ProjectDelta;
+import projects.dao.SyncWatermark;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+import projects.exception.DeadlineExceededException;
+import projects.exception.OverloadException;
+import projects.service.ProjectService;
+
+/**
+ * Serves {@link ProjectService} over HTTP on the JDK's built-in server.
+ *
+ * <pre>
+ * GET    /projects               list of projects (scalar fields), streamed from the result set
+ * GET    /projects?since={mark}  a page of projects changed or deleted after a sync watermark;
+ *                                since=initial starts a full sync, limit=n sets the page size
+ * GET    /projects/{id}          one project with its materials, steps and categories
+ * POST   /projects               create a project from a JSON object; 202 with the journal entry's
+ *                                idempotency key when the service writes behind
+ * PUT    /projects/{id}          update a project; If-Match makes the update conditional
+ * DELETE /projects/{id}          delete a project
+ * </pre>
+ *
+ * Archived projects are returned by GET but are read-only: PUT and DELETE answer 409.
+ *
+ * Single-project responses carry an ETag built from the project's row version. A GET whose
+ * If-None-Match matches the current version gets 304 after a primary key lookup of the version,
+ * without loading the project graph.
+ *
+ * Idle keep-alive connections are parked on the server's selector thread and do not hold a worker,
+ * so a fixed pool of workers serves many thousands of mostly idle clients.
+ */
+public class ProjectHttpServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_WORKERS = 64;
+    private static final int MAX_IDLE_CONNECTIONS = 10_000;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int DEFAULT_SYNC_PAGE = 200;
+
+    private final ProjectService projectService;
+    private final HttpServer server;
+    private final ExecutorService workers;
+
+    public ProjectHttpServer(ProjectService projectService, int port, int workerThreads) throws IOException {
+        // Read once by the JDK server; the default keeps only 200 idle keep-alive connections
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+        }
+
+        this.projectService = projectService;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+
+        server.createContext("/projects", this::handle);
+        server.setExecutor(workers);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ProjectService projectService = new ProjectService();
+        ProjectHttpServer server = new ProjectHttpServer(projectService, port, DEFAULT_WORKERS);
+        projectService.startPurger(Duration.ofSeconds(30), 500, Duration.ofMillis(50));
+        server.start();
+        System.out.println("Serving projects on port " + port);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (AbortedResponseException e) {
+            // Thrown without closing the exchange, so the server drops the connection before the
+            // last chunk and the client sees a broken transfer instead of a complete 200
+            throw e;
+        }
+
+        exchange.close();
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            Integer projectId = path.length > 2 ? Integer.valueOf(path[2]) : null;
+            String method = exchange.getRequestMethod();
+
+            if (path.length > 3) {
+                sendError(exchange, 404, "Not found");
+            } else if (projectId == null && method.equals("GET")) {
+                String since = queryParameter(exchange, "since");
+
+                if (since == null) {
+                    listProjects(exchange);
+                } else {
+                    syncProjects(exchange, since);
+                }
+            } else if (projectId == null && method.equals("POST")) {
+                createProject(exchange);
+            } else if (projectId != null && method.equals("GET")) {
+                getProject(exchange, projectId);
+            } else if (projectId != null && method.equals("PUT")) {
+                updateProject(exchange, projectId);
+            } else if (projectId != null && method.equals("DELETE")) {
+                deleteProject(exchange, projectId);
+            } else {
+                sendError(exchange, 405, "Method not allowed");
+            }
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid project ID");
+        } catch (IllegalArgumentException | ClassCastException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (OverloadException e) {
+            // Shed the request quickly so the client backs off instead of queueing behind the database
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, e.getMessage());
+        } catch (DeadlineExceededException e) {
+            sendError(exchange, 504, e.getMessage());
+        } catch (DbException e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void listProjects(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+
+        // Chunked, so rows go out as they are read
+        sendChunked(exchange, out -> {
+            JsonWriter json = new JsonWriter(out).beginArray();
+
+            projectService.streamProjects(rs -> {
+                try {
+                    json.beginObject()
+                            .field("projectId", rs.getInt("project_id"))
+                            .field("projectName", rs.getString("project_name"))
+                            .field("estimatedHours", rs.getBigDecimal("estimated_hours"))
+                            .field("actualHours", rs.getBigDecimal("actual_hours"))
+                            .field("difficulty", rs.getInt("difficulty"))
+                            .field("rowVersion", rs.getInt("row_version"))
+                            .endObject();
+                } catch (IOException e) {
+                    // The client went away; stop reading rows
+                    throw new DbException(e);
+                }
+            });
+
+            json.endArray();
+        });
+    }
+
+    private void syncProjects(HttpExchange exchange, String since) throws IOException {
+        SyncWatermark watermark = since.equals("initial") ? SyncWatermark.INITIAL : SyncWatermark.parse(since);
+        String limit = queryParameter(exchange, "limit");
+        int pageSize;
+
+        try {
+            pageSize = limit == null ? DEFAULT_SYNC_PAGE : Math.max(1, Math.min(Integer.parseInt(limit), ProjectDelta.MAX_LIMIT));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number: " + limit);
+        }
+
+        ProjectDelta delta = projectService.fetchProjectDelta(watermark, pageSize);
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+
+        sendChunked(exchange, out -> {
+            JsonWriter json = new JsonWriter(out).beginObject();
+
+            json.name("changed").beginArray();
+            for (Project project : delta.getChanged()) {
+                writeProject(json, project);
+            }
+            json.endArray();
+
+            json.name("deleted").beginArray();
+            for (Integer projectId : delta.getDeleted()) {
+                json.value(projectId);
+            }
+            json.endArray();
+
+            json.field("next", delta.getNextWatermark().toString()).field("more", delta.hasMore()).endObject();
+        });
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+
+        if (query == null) {
+            return null;
+        }
+
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+
+        return null;
+    }
+
+    private void getProject(HttpExchange exchange, Integer projectId) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+
+        if (ifNoneMatch != null) {
+            Integer version = projectService.fetchProjectVersion(projectId);
+
+            if (version == null) {
+                sendError(exchange, 404, "Project " + projectId + " does not exist");
+                return;
+            }
+
+            String current = etag(projectId, version);
+
+            // If-None-Match compares weakly: W/"1-2" matches "1-2"
+            for (String tag : parseEtags("If-None-Match", ifNoneMatch)) {
+                if (tag.equals("*") || stripWeak(tag).equals(current)) {
+                    exchange.getResponseHeaders().set("ETag", current);
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+        }
+
+        Project project = projectService.fetchProjectById(projectId);
+
+        if (project == null) {
+            sendError(exchange, 404, "Project " + projectId + " does not exist");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.getResponseHeaders().set("ETag", etag(projectId, project.getRowVersion()));
+
+        // Notes and step text load lazily while the body is written, so this can fail mid-body too
+        sendChunked(exchange, out -> writeProject(new JsonWriter(out), project));
+    }
+
+    private void createProject(HttpExchange exchange) throws IOException {
+        Project project = readProject(exchange);
+        JournalEntry entry = projectService.addOrJournalProject(project);
+
+        if (entry != null) {
+            // Journaled, not inserted: there is no project ID to point at yet
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.sendResponseHeaders(202, 0);
+
+            try (Writer out = responseWriter(exchange)) {
+                new JsonWriter(out).beginObject().field("idempotencyKey", entry.getIdempotencyKey()).endObject();
+            }
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Location", "/projects/" + project.getProjectId());
+        exchange.getResponseHeaders().set("ETag", etag(project.getProjectId(), project.getRowVersion()));
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(201, 0);
+
+        try (Writer out = responseWriter(exchange)) {
+            new JsonWriter(out).beginObject().field("projectId", project.getProjectId()).endObject();
+        }
+    }
+
+    private void updateProject(HttpExchange exchange, Integer projectId) throws IOException {
+        Project project = readProject(exchange);
+        project.setProjectId(projectId);
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+
+        List<String> tags = ifMatch == null ? List.of("*") : parseEtags("If-Match", ifMatch);
+
+        try {
+            if (tags.contains("*")) {
+                projectService.modifyProjectDetails(project);
+            } else {
+                Integer expected = expectedVersion(projectId, tags);
+
+                if (expected == null) {
+                    if (projectService.fetchProjectVersion(projectId) == null) {
+                        throw new DbException("The project does not exist.");
+                    }
+
+                    sendError(exchange, 412, "Project " + projectId + " has been modified");
+                    return;
+                }
+
+                project.setRowVersion(expected);
+
+                if (!projectService.modifyProjectDetailsIfUnchanged(project)) {
+                    sendError(exchange, 412, "Project " + projectId + " has been modified");
+                    return;
+                }
+            }
+        } catch (OverloadException | DeadlineExceededException e) {
+            throw e;
+        } catch (DbException e) {
+            refuseWrite(exchange, projectId, e);
+            return;
+        }
+
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void deleteProject(HttpExchange exchange, Integer projectId) throws IOException {
+        try {
+            projectService.deleteProject(projectId);
+            exchange.sendResponseHeaders(204, -1);
+        } catch (OverloadException | DeadlineExceededException e) {
+            throw e;
+        } catch (DbException e) {
+            refuseWrite(exchange, projectId, e);
+        }
+    }
+
+    /*
+     * Answers a write that failed because the project is not in the hot table: 409 if it has been
+     * archived, 404 if it does not exist. Any other failure is rethrown.
+     */
+    private void refuseWrite(HttpExchange exchange, Integer projectId, DbException e) throws IOException {
+        if (projectService.isProjectArchived(projectId)) {
+            sendError(exchange, 409, "Project " + projectId + " is archived and read-only");
+        } else if (projectService.fetchProjectVersion(projectId) == null) {
+            sendError(exchange, 404, "Project " + projectId + " does not exist");
+        } else {
+            throw e;
+        }
+    }
+
+    private Project readProject(HttpExchange exchange) throws IOException {
+        Map<String, Object> body;
+
+        try (InputStream in = exchange.getRequestBody()) {
+            body = JsonReader.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        Project project = new Project();
+        project.setProjectName((String)body.get("projectName"));
+        project.setEstimatedHours((BigDecimal)body.get("estimatedHours"));
+        project.setActualHours((BigDecimal)body.get("actualHours"));
+
+        try {
+            project.setDifficulty(body.get("difficulty") == null ? null : ((BigDecimal)body.get("difficulty")).intValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("difficulty must be a whole number that fits an int: " + body.get("difficulty"));
+        }
+
+        project.setNotes((String)body.get("notes"));
+
+        if (project.getProjectName() == null || project.getDifficulty() == null) {
+            throw new IllegalArgumentException("projectName and difficulty are required");
+        }
+
+        return project;
+    }
+
+    private void writeProject(JsonWriter json, Project project) throws IOException {
+        json.beginObject()
+                .field("projectId", project.getProjectId())
+                .field("projectName", project.getProjectName())
+                .field("estimatedHours", project.getEstimatedHours())
+                .field("actualHours", project.getActualHours())
+                .field("difficulty", project.getDifficulty())
+                .field("notes", project.getNotes())
+                .field("rowVersion", project.getRowVersion());
+
+        json.name("materials").beginArray();
+        for (Material material : project.getMaterials()) {
+            json.beginObject().field("materialId", material.getMaterialId()).field("name", material.getName()).endObject();
+        }
+        json.endArray();
+
+        json.name("steps").beginArray();
+        for (Step step : project.getSteps()) {
+            json.beginObject().field("stepId", step.getStepId()).field("stepOrder", step.getStepOrder())
+                    .field("stepText", step.getStepText()).endObject();
+        }
+        json.endArray();
+
+        json.name("categories").beginArray();
+        for (Category category : project.getCategories()) {
+            json.beginObject().field("categoryId", category.getCategoryId())
+                    .field("categoryName", category.getCategoryName()).endObject();
+        }
+        json.endArray();
+
+        json.endObject();
+    }
+
+    private static String etag(Integer projectId, Integer rowVersion) {
+        return "\"" + projectId + "-" + rowVersion + "\"";
+    }
+
+    /*
+     * Reads an If-Match or If-None-Match value: "*" or a list of entity tags, each quoted and
+     * optionally weak (W/"..."), separated by commas. Tags keep their quotes and W/ prefix.
+     */
+    private static List<String> parseEtags(String header, String value) {
+        List<String> tags = new ArrayList<>();
+        int position = 0;
+
+        while (position < value.length()) {
+            char next = value.charAt(position);
+
+            if (next == ',' || next == ' ' || next == '\t') {
+                position++;
+                continue;
+            }
+
+            if (next == '*') {
+                tags.add("*");
+                position++;
+                continue;
+            }
+
+            int start = position;
+            int quote = value.startsWith("W/", position) ? position + 2 : position;
+            int end = quote < value.length() && value.charAt(quote) == '"' ? value.indexOf('"', quote + 1) : -1;
+
+            if (end < 0) {
+                throw new IllegalArgumentException("Malformed " + header + " header: " + value);
+            }
+
+            tags.add(value.substring(start, end + 1));
+            position = end + 1;
+        }
+
+        if (tags.isEmpty()) {
+            throw new IllegalArgumentException("Malformed " + header + " header: " + value);
+        }
+
+        return tags;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /*
+     * The row version an If-Match list allows the update at, or null if none of its tags can match.
+     * If-Match compares strongly, so weak tags and tags of other projects are ignored. When several
+     * versions are listed, the current one is used if it is among them.
+     */
+    private Integer expectedVersion(Integer projectId, List<String> tags) {
+        String prefix = "\"" + projectId + "-";
+        Set<Integer> versions = new HashSet<>();
+
+        for (String tag : tags) {
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    versions.add(Integer.valueOf(tag.substring(prefix.length(), tag.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // Not one of our tags, so it cannot match
+                }
+            }
+        }
+
+        if (versions.size() <= 1) {
+            return versions.isEmpty() ? null : versions.iterator().next();
+        }
+
+        Integer current = projectService.fetchProjectVersion(projectId);
+        return versions.contains(current) ? current : null;
+    }
+
+    /*
+     * Sends 200 and a chunked body. The stream is closed, which writes the last chunk, only once the
+     * whole body is written; sendError turns a later failure into an AbortedResponseException.
+     */
+    private static void sendChunked(HttpExchange exchange, BodyWriter body) throws IOException {
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = responseWriter(exchange);
+        body.write(out);
+        out.close();
+    }
+
+    private static Writer responseWriter(HttpExchange exchange) {
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // The headers are already out, so the status can no longer change
+            throw new AbortedResponseException(status + " after the response started: " + message);
+        }
+
+        byte[] body;
+
+        try (StringWriter text = new StringWriter()) {
+            new JsonWriter(text).beginObject().field("error", message).endObject();
+            body = text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(Writer out) throws IOException;
+    }
+
+    private static final class AbortedResponseException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private AbortedResponseException(String message) {
+            super(message);
+        }
+    }
+}